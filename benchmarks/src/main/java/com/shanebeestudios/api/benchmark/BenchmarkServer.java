@@ -0,0 +1,70 @@
+package com.shanebeestudios.api.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import be.seeseemelk.mockbukkit.ServerMock;
+import com.shanebeestudios.api.RecipeManager;
+import com.shanebeestudios.api.VirtualFurnaceAPI;
+import com.shanebeestudios.api.VirtualFurnaceSettings;
+import com.shanebeestudios.api.machine.Furnace;
+import com.shanebeestudios.api.recipe.FurnaceRecipe;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Mock server running the API for benchmarks
+ * <p>The furnace tick is disabled, benchmarks tick the machines they measure themselves.
+ * The mock server has no vanilla recipes, so the furnaces cook a recipe registered here.</p>
+ */
+final class BenchmarkServer {
+
+    final ServerMock server;
+    final MockPlugin plugin;
+    final VirtualFurnaceAPI api;
+
+    private BenchmarkServer() {
+        this.server = MockBukkit.mock();
+        this.plugin = MockBukkit.createMockPlugin();
+        this.api = new VirtualFurnaceAPI(this.plugin, new VirtualFurnaceSettings()
+                .silentStart(true)
+                .disableMetrics(true)
+                .clearDataFileOnDisable(true));
+        this.api.disableFurnaceTick();
+        RecipeManager recipeManager = this.api.getRecipeManager();
+        recipeManager.registerFurnaceRecipe(new FurnaceRecipe(new NamespacedKey(this.plugin, "bench_iron_ingot"),
+                Material.IRON_ORE, Material.IRON_INGOT, 200, 0.7f));
+    }
+
+    /**
+     * Start the mock server, the thread calling this is its main thread
+     *
+     * @return Running server
+     */
+    static BenchmarkServer start() {
+        return new BenchmarkServer();
+    }
+
+    /**
+     * Create furnaces which are burning and cooking, with enough input and fuel for every iteration
+     *
+     * @param amount Amount of furnaces
+     * @return Furnaces, not tracked by the API
+     */
+    Furnace[] createCookingFurnaces(int amount) {
+        Furnace[] furnaces = new Furnace[amount];
+        for (int i = 0; i < amount; i++) {
+            Furnace furnace = new Furnace("Bench");
+            furnace.setInput(new ItemStack(Material.IRON_ORE, 64));
+            furnace.setFuel(new ItemStack(Material.COAL_BLOCK, 64));
+            furnaces[i] = furnace;
+        }
+        return furnaces;
+    }
+
+    void stop() {
+        this.api.disableAPI(true);
+        MockBukkit.unmock();
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.shanebeestudios.api.benchmark;
+
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.shanebeestudios.api.RecipeManager;
+import com.shanebeestudios.api.machine.Furnace;
+import com.shanebeestudios.api.recipe.FurnaceFuel;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.event.inventory.*;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clicks in the fuel slot of a furnace inventory
+ * <p>{@link #click()} calls the click event through the plugin manager of the mock server,
+ * so it runs every listener of the API for the click. {@link #classify()} only checks whether the cursor
+ * is a custom fuel, {@link #classifyByScan()} does the same by scanning all fuels, which is how the listener used to check.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FuelClickBenchmark {
+
+    // A vanilla fuel, a custom fuel, and not a fuel
+    @Param({"COAL", "DIAMOND", "STONE"})
+    Material cursorType;
+
+    private BenchmarkServer server;
+    private RecipeManager recipeManager;
+    private PlayerMock player;
+    private InventoryView view;
+    private ItemStack cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.server = BenchmarkServer.start();
+        this.recipeManager = this.server.api.getRecipeManager();
+        this.recipeManager.registerFurnaceFuel(new FurnaceFuel(new NamespacedKey(this.server.plugin, "bench_diamond"), Material.DIAMOND, 1600));
+        Furnace furnace = new Furnace("Bench");
+        this.player = this.server.server.addPlayer();
+        this.view = this.player.openInventory(furnace.getInventory());
+        this.cursor = new ItemStack(this.cursorType, 16);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.server.stop();
+    }
+
+    @Benchmark
+    public boolean click() {
+        // A custom fuel is swapped into the furnace, so every click starts with the same cursor
+        this.player.setItemOnCursor(this.cursor.clone());
+        InventoryClickEvent event = new InventoryClickEvent(this.view, InventoryType.SlotType.FUEL, 1, ClickType.LEFT, InventoryAction.PLACE_ALL);
+        this.server.server.getPluginManager().callEvent(event);
+        return event.isCancelled();
+    }
+
+    @Benchmark
+    public boolean classify() {
+        return this.recipeManager.isCustomFuel(this.cursorType);
+    }
+
+    @Benchmark
+    public boolean classifyByScan() {
+        boolean fuel = false;
+        for (FurnaceFuel furnaceFuel : this.recipeManager.getFurnaceFuels().values()) {
+            if (furnaceFuel.matchFuel(this.cursorType)) {
+                fuel = true;
+                break;
+            }
+        }
+        if (!fuel) return false;
+        for (FurnaceFuel vanillaFuel : FurnaceFuel.getVanillaFuels()) {
+            if (vanillaFuel.getFuel() == this.cursorType) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.shanebeestudios.api.benchmark;
+
+import com.shanebeestudios.api.machine.Furnace;
+import com.shanebeestudios.api.machine.FurnaceStateStore;
+import com.shanebeestudios.api.task.TickMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks of cooking furnaces, comparing the object per furnace loop with the {@link FurnaceStateStore}
+ * <p>The object loop ticks every furnace object, like {@link TickMode#PER_TICK} mode. The array loop steps furnaces
+ * through the state store like {@link TickMode#ARRAY} mode, furnaces are only ticked on their own around a state change.</p>
+ * <p>Each iteration runs 1000 ticks on new furnaces, which cook a few items in that time without running out.
+ * Run with {@code -prof gc} to see the allocations of each loop.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 1000)
+@Measurement(iterations = 5, batchSize = 1000)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FurnaceTickBenchmark {
+
+    @State(Scope.Thread)
+    public static class Server {
+
+        BenchmarkServer server;
+
+        @Setup(Level.Trial)
+        public void start() {
+            this.server = BenchmarkServer.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            this.server.stop();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class ObjectLoop {
+
+        @Param({"10000", "100000", "1000000"})
+        int machines;
+        Furnace[] furnaces;
+
+        @Setup(Level.Iteration)
+        public void setup(Server server) {
+            // Drop the furnaces of the last iteration before creating new ones
+            this.furnaces = null;
+            this.furnaces = server.server.createCookingFurnaces(this.machines);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class ArrayLoop {
+
+        @Param({"10000", "100000", "1000000"})
+        int machines;
+        FurnaceStateStore store;
+        Furnace[] furnaces;
+        // Slots of furnaces ticked on their own, as they change state next tick
+        int[] active;
+        int activeSize;
+
+        @Setup(Level.Iteration)
+        public void setup(Server server) {
+            this.furnaces = null;
+            Furnace[] furnaces = server.server.createCookingFurnaces(this.machines);
+            this.store = new FurnaceStateStore();
+            this.furnaces = new Furnace[this.machines];
+            this.active = new int[this.machines];
+            this.activeSize = 0;
+            for (Furnace furnace : furnaces) {
+                int slot;
+                synchronized (furnace) {
+                    slot = this.store.bind(furnace);
+                }
+                this.furnaces[slot] = furnace;
+                this.active[this.activeSize++] = slot;
+            }
+        }
+
+    }
+
+    @Benchmark
+    public void objectLoop(ObjectLoop loop) {
+        for (Furnace furnace : loop.furnaces) {
+            synchronized (furnace) {
+                furnace.tick();
+            }
+        }
+    }
+
+    // Same order as a tick shard, step the store first, then tick the active furnaces
+    @Benchmark
+    public int arrayLoop(ArrayLoop loop) {
+        FurnaceStateStore store = loop.store;
+        int[] active = loop.active;
+        int expired = store.tick();
+        int size = loop.activeSize;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = active[i];
+            Furnace furnace = loop.furnaces[slot];
+            synchronized (furnace) {
+                furnace.tick();
+                if (!store.step(furnace)) {
+                    active[kept++] = slot;
+                }
+            }
+        }
+        for (int i = 0; i < expired; i++) {
+            active[kept++] = store.getExpired(i);
+        }
+        loop.activeSize = kept;
+        return kept;
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.shanebeestudios.api.benchmark;
+
+import com.shanebeestudios.api.RecipeManager;
+import com.shanebeestudios.api.recipe.FurnaceRecipe;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the recipe for an ingredient, comparing {@link RecipeManager#getByIngredient(Material)}
+ * with a scan over every registered recipe, which is how it used to be looked up
+ * <p>Recipes are registered for a few hundred materials, about as many as the vanilla import.
+ * Lookups are spread over all materials, so about half of them have no recipe.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecipeLookupBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"100", "500"})
+    int recipes;
+
+    private BenchmarkServer server;
+    private RecipeManager recipeManager;
+    private List<FurnaceRecipe> registered;
+    private Material[] lookups;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.server = BenchmarkServer.start();
+        this.recipeManager = this.server.api.getRecipeManager();
+        List<Material> materials = new ArrayList<>();
+        for (Material material : Material.values()) {
+            if (!material.isLegacy() && material.isItem() && material != Material.AIR) {
+                materials.add(material);
+            }
+        }
+        Random random = new Random(1);
+        List<Material> ingredients = new ArrayList<>(materials);
+        Collections.shuffle(ingredients, random);
+        List<FurnaceRecipe> furnaceRecipes = new ArrayList<>();
+        for (Material ingredient : ingredients.subList(0, Math.min(this.recipes, ingredients.size()))) {
+            NamespacedKey key = new NamespacedKey(this.server.plugin, "bench_" + ingredient.name().toLowerCase(Locale.ROOT));
+            furnaceRecipes.add(new FurnaceRecipe(key, ingredient, Material.STONE, 200, 0.1f));
+        }
+        this.recipeManager.registerFurnaceRecipes(furnaceRecipes);
+        this.registered = new ArrayList<>(this.recipeManager.getFurnaceRecipes().values());
+
+        // Half of the lookups hit a recipe, the other half any material
+        this.lookups = new Material[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            this.lookups[i] = i % 2 == 0 ? furnaceRecipes.get(random.nextInt(furnaceRecipes.size())).getIngredient()
+                    : materials.get(random.nextInt(materials.size()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.server.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void indexed(Blackhole blackhole) {
+        for (Material material : this.lookups) {
+            blackhole.consume(this.recipeManager.getByIngredient(material));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void scan(Blackhole blackhole) {
+        for (Material material : this.lookups) {
+            blackhole.consume(scan(material));
+        }
+    }
+
+    private FurnaceRecipe scan(Material ingredient) {
+        for (FurnaceRecipe recipe : this.registered) {
+            if (recipe.getIngredient() == ingredient) {
+                return recipe;
+            }
+        }
+        return null;
+    }
+
+}
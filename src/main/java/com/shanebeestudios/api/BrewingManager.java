@@ -2,10 +2,11 @@ package com.shanebeestudios.api;
 
 import com.shanebeestudios.api.machine.BrewingStand;
 import com.shanebeestudios.api.property.BrewingProperties;
+import com.shanebeestudios.api.storage.*;
+import com.shanebeestudios.api.task.FurnaceTick;
 import com.shanebeestudios.api.util.Util;
 import org.bukkit.NamespacedKey;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.*;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
@@ -15,14 +16,17 @@ public class BrewingManager {
     private final VirtualFurnaceAPI virtualFurnaceAPI;
     private final Map<UUID, BrewingStand> brewingMap;
     private final NamespacedKey key;
-    private File brewingFile;
-    private FileConfiguration brewingConfig;
+    private volatile MachineStorage<BrewingStand> storage;
+    // Whether the storage changed since it was last written to file
+    private volatile boolean configChanged;
 
     public BrewingManager(VirtualFurnaceAPI api) {
         this.virtualFurnaceAPI = api;
         this.brewingMap = new HashMap<>();
         this.key = Util.getKey("brewingId");
-        loadBrewingConfig();
+        this.storage = createStorage();
+        loadBrewingStands();
+        reshard(api.getSettings().getStorageShards());
     }
 
     public BrewingStand getByID(@NotNull UUID uuid) {
@@ -36,74 +40,147 @@ public class BrewingManager {
     public BrewingStand createBrewingStand(String name) {
         BrewingStand stand = new BrewingStand(name, BrewingProperties.NORMAL);
         this.brewingMap.put(stand.getUniqueID(), stand);
+        FurnaceTick furnaceTick = this.virtualFurnaceAPI.getFurnaceTick();
+        if (furnaceTick != null) {
+            furnaceTick.track(stand);
+        }
         saveBrewing(stand, true);
         return stand;
     }
 
-    private void loadBrewingConfig() {
-        if (this.brewingFile == null) {
-            this.brewingFile = new File(this.virtualFurnaceAPI.getJavaPlugin().getDataFolder(), "brewing-stands.yml");
+    private MachineStorage<BrewingStand> createStorage() {
+        JavaPlugin plugin = this.virtualFurnaceAPI.getJavaPlugin();
+        StorageType storageType = this.virtualFurnaceAPI.getSettings().getStorageType();
+        // Brewing stands stay where they are, they are moved to the configured shards after loading
+        int shardCount = ShardedMachineStorage.findShardCount(plugin.getDataFolder(), "brewing-stands");
+        if (shardCount > 0) {
+            return new ShardedMachineStorage<>(plugin.getDataFolder(), "brewing-stands", shardCount, storageType, "brewing", MachineCodec.BREWING_STAND, BrewingStand.class);
+        }
+        File yamlFile = new File(plugin.getDataFolder(), "brewing-stands.yml");
+        if (storageType == StorageType.YAML) {
+            if (!yamlFile.exists())
+                plugin.saveResource("brewing-stands.yml", false);
+        } else {
+            try {
+                File file = new File(plugin.getDataFolder(), "brewing-stands." + storageType.getExtension());
+                int converted = StorageConverter.convertIfMissing(yamlFile, "brewing", file, MachineCodec.BREWING_STAND);
+                if (converted >= 0 && !virtualFurnaceAPI.isSilentStart()) {
+                    Util.log("Converted: &b" + converted + "&7 brewing stands to " + storageType);
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
         }
+        return storageType.create(plugin.getDataFolder(), "brewing-stands", "brewing", MachineCodec.BREWING_STAND, BrewingStand.class);
+    }
 
-        if (!brewingFile.exists())
-            this.virtualFurnaceAPI.getJavaPlugin().saveResource("brewing-stands.yml", false);
+    /**
+     * Move all brewing stands to a new amount of storage shards
+     * <p>This can be done while the server is running, brewing stands are written to the new shards
+     * before the old files are deleted. While brewing stands are ticking, this is done in between two ticks
+     * after this method returns, so the tick thread does not save brewing stands to the old storage meanwhile.</p>
+     * <p>See {@link VirtualFurnaceSettings#storageShards(int)}</p>
+     *
+     * @param shardCount Amount of shards, 0 to store all brewing stands in one file
+     */
+    public void reshard(int shardCount) {
+        FurnaceTick furnaceTick = this.virtualFurnaceAPI.getFurnaceTick();
+        if (furnaceTick != null) {
+            furnaceTick.runBetweenTicks(() -> reshardNow(shardCount));
+        } else {
+            reshardNow(shardCount);
+        }
+    }
 
-        this.brewingConfig = YamlConfiguration.loadConfiguration(this.brewingFile);
-        loadBrewingStands();
+    private void reshardNow(int shardCount) {
+        MachineStorage<BrewingStand> storage = this.storage;
+        int current = storage instanceof ShardedMachineStorage<BrewingStand> sharded ? sharded.getShardCount() : 0;
+        if (Math.max(shardCount, 0) == current) return;
+
+        File dataFolder = this.virtualFurnaceAPI.getJavaPlugin().getDataFolder();
+        StorageType storageType = this.virtualFurnaceAPI.getSettings().getStorageType();
+        MachineStorage<BrewingStand> resharded = shardCount > 0 ?
+                new ShardedMachineStorage<>(dataFolder, "brewing-stands", shardCount, storageType, "brewing", MachineCodec.BREWING_STAND, BrewingStand.class) :
+                storageType.create(dataFolder, "brewing-stands", "brewing", MachineCodec.BREWING_STAND, BrewingStand.class);
+        ShardedMachineStorage.reshard(dataFolder, "brewing-stands", storage, resharded, swapped -> this.storage = swapped,
+                this.brewingMap.values()::forEach);
+        if (!virtualFurnaceAPI.isSilentStart()) {
+            Util.log("Resharded: &b" + this.brewingMap.size() + "&7 brewing stands from &b" + current + "&7 to &b" + Math.max(shardCount, 0) + "&7 shards");
+        }
     }
 
     public void clearBrewingFile() {
-        brewingFile.delete();
+        this.storage.delete();
     }
 
     void loadBrewingStands() {
-        ConfigurationSection section = this.brewingConfig.getConfigurationSection("brewing");
-        if (section != null) {
-            for (String string : section.getKeys(true)) {
-                if (section.get(string) instanceof BrewingStand) {
-                    BrewingStand brewingStand = ((BrewingStand) section.get(string));
-                    if (brewingStand == null) return;
-
-                    this.brewingMap.put(UUID.fromString(string), brewingStand);
-                }
+        boolean catchUp = this.virtualFurnaceAPI.getSettings().isWallClock();
+        long now = System.currentTimeMillis();
+        int[] caughtUp = new int[1];
+        this.storage.load(brewingStand -> {
+            if (catchUp && brewingStand.catchUpTo(now)) {
+                caughtUp[0]++;
             }
-        }
-        if (!virtualFurnaceAPI.isSilentStart())
+            this.brewingMap.put(brewingStand.getUniqueID(), brewingStand);
+        });
+        if (!virtualFurnaceAPI.isSilentStart()) {
             Util.log("Loaded: &b" + this.brewingMap.size() + "&7 furnaces");
+            if (catchUp) Util.log("Caught up: &b" + caughtUp[0] + "&7 brewing stands");
+        }
     }
 
     public void removeBrewingFromConfig(BrewingStand stand, boolean save) {
-        this.brewingConfig.set("brewing." + stand.getUniqueID(), null);
+        this.storage.remove(stand.getUniqueID());
+        this.configChanged = true;
         if (save)
             saveConfig();
     }
 
     public void saveBrewing(BrewingStand stand, boolean saveToFile) {
-        this.brewingConfig.set("brewing." + stand.getUniqueID(), stand);
+        this.storage.save(stand);
+        this.configChanged = true;
         if (saveToFile)
             saveConfig();
     }
 
+    // The file is written in the background, after all brewing stands saved before this
     private void saveConfig() {
-        try {
-            brewingConfig.save(brewingFile);
-        } catch (ConcurrentModificationException ignored) {
-            // Don't know if this would be called but hey, we'll have it here just because.
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
+        this.configChanged = false;
+        this.storage.write();
     }
 
     public void shutdown() {
         saveAll();
+        this.storage.shutdown();
         brewingMap.clear();
     }
 
+    /**
+     * Save all brewing stands to file
+     * <p>Only brewing stands which {@link BrewingStand#isDirty() changed} since they were last saved are saved again,
+     * the file is only written when anything changed.</p>
+     */
     public void saveAll() {
+        saveAllChanged();
+    }
+
+    /**
+     * Save all brewing stands to file, like {@link #saveAll()}
+     *
+     * @return Amount of brewing stands which were saved
+     */
+    public int saveAllChanged() {
+        int saved = 0;
         for (BrewingStand stand : this.brewingMap.values()) {
-            saveBrewing(stand, false);
+            if (stand.takeDirty()) {
+                saveBrewing(stand, false);
+                saved++;
+            }
+        }
+        if (this.configChanged) {
+            saveConfig();
         }
-        saveConfig();
+        return saved;
     }
 
 }
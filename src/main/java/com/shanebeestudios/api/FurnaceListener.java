@@ -2,14 +2,14 @@ package com.shanebeestudios.api;
 
 import com.shanebeestudios.api.event.machine.FurnaceExtractEvent;
 import com.shanebeestudios.api.machine.*;
-import com.shanebeestudios.api.recipe.FurnaceFuel;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.entity.*;
 import org.bukkit.event.*;
 import org.bukkit.event.block.Action;
-import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.server.ServerLoadEvent;
 import org.bukkit.inventory.*;
 
 class FurnaceListener implements Listener {
@@ -61,6 +61,11 @@ class FurnaceListener implements Listener {
         Inventory inventory = event.getInventory();
         InventoryHolder holder = inventory.getHolder();
         HumanEntity clicker = event.getWhoClicked();
+        if (holder instanceof Machine machine) {
+            // Contents change after this event, sync them on the next tick
+            machine.queueSync();
+            machine.wake();
+        }
         if (holder instanceof Furnace furnace && clicker instanceof Player) {
             int slot = event.getRawSlot();
             // Give XP to player when they extract from the furnace
@@ -80,8 +85,7 @@ class FurnaceListener implements Listener {
             else if (slot == 1) {
                 ItemStack cursor = clicker.getItemOnCursor();
 
-                FurnaceFuel fuel = recipeManager.getFuelByMaterial(cursor.getType());
-                if (fuel != null && isNotVanillaFuel(cursor)) {
+                if (recipeManager.isCustomFuel(cursor.getType())) {
                     ItemStack furnaceFuel = furnace.getFuel();
                     event.setCancelled(true);
                     if (furnaceFuel != null && furnaceFuel.getType() == cursor.getType()) {
@@ -129,14 +133,35 @@ class FurnaceListener implements Listener {
         }
     }
 
-    private boolean isNotVanillaFuel(ItemStack itemStack) {
-        for (FurnaceFuel fuel : FurnaceFuel.getVanillaFuels()) {
-            if (fuel.getFuel() == itemStack.getType()) {
-                return false;
-            }
+    @EventHandler
+    private void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getInventory().getHolder() instanceof Machine machine) {
+            machine.queueSync();
+        }
+    }
+
+    // Only counted once the inventory is actually opened, a cancelled open is never closed again
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onInventoryOpen(InventoryOpenEvent event) {
+        if (event.getInventory().getHolder() instanceof Machine machine) {
+            machine.addViewer();
+            machine.wake();
+        }
+    }
+
+    @EventHandler
+    private void onInventoryClose(InventoryCloseEvent event) {
+        if (event.getInventory().getHolder() instanceof Machine machine) {
+            machine.removeViewer();
         }
-        return true;
     }
+
+    @EventHandler
+    private void onServerLoad(ServerLoadEvent event) {
+        // Tags may have changed with the data packs
+        recipeManager.rebuildFuelIndex();
+    }
+
 /*
     @EventHandler
     private void onChunkLoad(ChunkLoadEvent event) {
@@ -1,19 +1,22 @@
 package com.shanebeestudios.api;
 
 import com.shanebeestudios.api.machine.Furnace;
+import com.shanebeestudios.api.machine.OffHeapFurnaceStore;
 import com.shanebeestudios.api.property.FurnaceProperties;
+import com.shanebeestudios.api.storage.*;
+import com.shanebeestudios.api.task.FurnaceTick;
 import com.shanebeestudios.api.util.Util;
 import org.bukkit.*;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.*;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.*;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
@@ -25,19 +28,29 @@ public class FurnaceManager {
 
     private final VirtualFurnaceAPI virtualFurnaceAPI;
     private final Map<UUID, Furnace> furnaceMap;
+    private final OffHeapFurnaceStore offHeapStore;
     private final NamespacedKey key;
-    private File furnaceFile;
-    private FileConfiguration furnaceConfig;
+    private volatile MachineStorage<Furnace> storage;
+    // Whether the storage changed since it was last written to file
+    private volatile boolean configChanged;
 
     FurnaceManager(VirtualFurnaceAPI virtualFurnaceAPI) {
         this.virtualFurnaceAPI = virtualFurnaceAPI;
-        this.furnaceMap = new HashMap<>();
+        this.furnaceMap = new ConcurrentHashMap<>();
+        this.offHeapStore = virtualFurnaceAPI.getSettings().isOffHeap() ? new OffHeapFurnaceStore() : null;
         this.key = new NamespacedKey(virtualFurnaceAPI.getJavaPlugin(), "furnaceID");
-        loadFurnaceConfig();
+        this.storage = createStorage();
+        if (this.offHeapStore != null) {
+            this.storage.setReleasedMachines(this.offHeapStore);
+        }
+        loadFurnaces();
+        reshard(virtualFurnaceAPI.getSettings().getStorageShards());
     }
 
     /**
      * Get a collection of all {@link Furnace}s
+     * <p><b>NOTE:</b> When using {@link VirtualFurnaceSettings#offHeap(boolean) off-heap storage},
+     * this only includes furnaces which are currently loaded</p>
      *
      * @return Collection of all furnaces
      */
@@ -52,7 +65,65 @@ public class FurnaceManager {
      * @return Furnace from ID (null if a furnace with this ID does not exist)
      */
     public Furnace getByID(@NotNull UUID uuid) {
-        return this.furnaceMap.get(uuid);
+        Furnace furnace = this.furnaceMap.get(uuid);
+        if (furnace != null || this.offHeapStore == null) return furnace;
+
+        // Load the furnace back from off-heap storage, the storage keeps its snapshot again as it was offloaded.
+        // Furnaces are moved in and out while holding the lock of the off-heap store, so they are always in one of both,
+        // and storages take snapshots of off-heap furnaces while holding it too, so none are missed in between.
+        synchronized (this.offHeapStore) {
+            furnace = this.furnaceMap.get(uuid);
+            if (furnace != null) return furnace;
+            // Taken from the record, locking the furnace here could deadlock with a change moving it back
+            Map<String, Object> snapshot = this.offHeapStore.snapshot(uuid);
+            if (snapshot == null) return null;
+            furnace = this.offHeapStore.remove(uuid);
+            this.furnaceMap.put(uuid, furnace);
+            this.storage.restore(uuid, snapshot);
+        }
+        FurnaceTick furnaceTick = this.virtualFurnaceAPI.getFurnaceTick();
+        if (furnaceTick != null) {
+            furnaceTick.track(furnace);
+        }
+        return furnace;
+    }
+
+    /**
+     * Move an idle furnace into off-heap storage
+     * <p>The furnace is saved when it is moved if it changed, after which the storage
+     * {@link MachineStorage#release(UUID) releases} it. Storages do not keep snapshots of off-heap furnaces,
+     * they are taken from the off-heap records whenever a file is written.
+     * Changes made through a reference kept to the furnace move it back again.</p>
+     * <p><b>Internal use only!</b></p>
+     *
+     * @param furnace Furnace to move
+     * @return True if the furnace was moved
+     */
+    public boolean offload(@NotNull Furnace furnace) {
+        if (this.offHeapStore == null) return false;
+        // Changes to the furnace are made while holding its lock, so it cannot be changed while it is moved
+        synchronized (furnace) {
+            if (!furnace.isIdle()) return false;
+            synchronized (this.offHeapStore) {
+                if (!this.furnaceMap.remove(furnace.getUniqueID(), furnace)) return false;
+                this.offHeapStore.put(furnace);
+                if (furnace.takeDirty()) {
+                    this.storage.save(furnace);
+                    this.configChanged = true;
+                }
+                this.storage.release(furnace.getUniqueID());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the amount of furnaces currently stored off-heap
+     *
+     * @return Amount of off-heap furnaces
+     */
+    public int getOffHeapCount() {
+        return this.offHeapStore != null ? this.offHeapStore.size() : 0;
     }
 
     /**
@@ -107,6 +178,10 @@ public class FurnaceManager {
             function.accept(furnace);
         }
         this.furnaceMap.put(furnace.getUniqueID(), furnace);
+        FurnaceTick furnaceTick = this.virtualFurnaceAPI.getFurnaceTick();
+        if (furnaceTick != null) {
+            furnaceTick.track(furnace);
+        }
         saveFurnace(furnace, true);
         return furnace;
     }
@@ -253,37 +328,112 @@ public class FurnaceManager {
         return null;
     }
 
-    private void loadFurnaceConfig() {
-        if (this.furnaceFile == null) {
-            this.furnaceFile = new File(this.virtualFurnaceAPI.getJavaPlugin().getDataFolder(), "furnaces.yml");
+    private MachineStorage<Furnace> createStorage() {
+        JavaPlugin plugin = this.virtualFurnaceAPI.getJavaPlugin();
+        StorageType storageType = this.virtualFurnaceAPI.getSettings().getStorageType();
+        // Furnaces stay where they are, they are moved to the configured shards after loading
+        int shardCount = ShardedMachineStorage.findShardCount(plugin.getDataFolder(), "furnaces");
+        if (shardCount > 0) {
+            return new ShardedMachineStorage<>(plugin.getDataFolder(), "furnaces", shardCount, storageType, "furnaces", MachineCodec.FURNACE, Furnace.class);
         }
-        if (!furnaceFile.exists()) {
-            this.virtualFurnaceAPI.getJavaPlugin().saveResource("furnaces.yml", false);
+        File yamlFile = new File(plugin.getDataFolder(), "furnaces.yml");
+        if (storageType == StorageType.YAML) {
+            if (!yamlFile.exists()) {
+                plugin.saveResource("furnaces.yml", false);
+            }
+        } else {
+            try {
+                File file = new File(plugin.getDataFolder(), "furnaces." + storageType.getExtension());
+                int converted = StorageConverter.convertIfMissing(yamlFile, "furnaces", file, MachineCodec.FURNACE);
+                if (converted >= 0 && !virtualFurnaceAPI.isSilentStart()) {
+                    Util.log("Converted: &b" + converted + "&7 furnaces to " + storageType);
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
         }
-        this.furnaceConfig = YamlConfiguration.loadConfiguration(this.furnaceFile);
-        loadFurnaces();
+        return storageType.create(plugin.getDataFolder(), "furnaces", "furnaces", MachineCodec.FURNACE, Furnace.class);
     }
 
+    /**
+     * Move all furnaces to a new amount of storage shards
+     * <p>This can be done while the server is running, furnaces are written to the new shards
+     * before the old files are deleted. While furnaces are ticking, this is done in between two ticks
+     * after this method returns, so the tick thread does not save furnaces to the old storage meanwhile.</p>
+     * <p>See {@link VirtualFurnaceSettings#storageShards(int)}</p>
+     *
+     * @param shardCount Amount of shards, 0 to store all furnaces in one file
+     */
+    public void reshard(int shardCount) {
+        FurnaceTick furnaceTick = this.virtualFurnaceAPI.getFurnaceTick();
+        if (furnaceTick != null) {
+            furnaceTick.runBetweenTicks(() -> reshardNow(shardCount));
+        } else {
+            reshardNow(shardCount);
+        }
+    }
+
+    private void reshardNow(int shardCount) {
+        MachineStorage<Furnace> storage = this.storage;
+        int current = storage instanceof ShardedMachineStorage<Furnace> sharded ? sharded.getShardCount() : 0;
+        if (Math.max(shardCount, 0) == current) return;
+
+        File dataFolder = this.virtualFurnaceAPI.getJavaPlugin().getDataFolder();
+        StorageType storageType = this.virtualFurnaceAPI.getSettings().getStorageType();
+        MachineStorage<Furnace> resharded = shardCount > 0 ?
+                new ShardedMachineStorage<>(dataFolder, "furnaces", shardCount, storageType, "furnaces", MachineCodec.FURNACE, Furnace.class) :
+                storageType.create(dataFolder, "furnaces", "furnaces", MachineCodec.FURNACE, Furnace.class);
+        if (this.offHeapStore == null) {
+            ShardedMachineStorage.reshard(dataFolder, "furnaces", storage, resharded, swapped -> this.storage = swapped,
+                    consumer -> this.furnaceMap.values().forEach(consumer));
+        } else {
+            resharded.setReleasedMachines(this.offHeapStore);
+            ShardedMachineStorage.reshard(dataFolder, "furnaces", storage, resharded, swapped -> this.storage = swapped, consumer -> {
+                // Furnaces move between the map and the off-heap store while holding its lock, none are missed in between
+                synchronized (this.offHeapStore) {
+                    this.furnaceMap.values().forEach(consumer);
+                    // Off-heap furnaces are added from their records, the new storage does not keep them after
+                    this.offHeapStore.collect(uuid -> true, snapshots -> snapshots.forEach(snapshot -> {
+                        UUID uuid = UUID.fromString(snapshot.get("uuid").toString());
+                        resharded.restore(uuid, snapshot);
+                        resharded.release(uuid);
+                    }));
+                }
+            });
+        }
+        if (!virtualFurnaceAPI.isSilentStart()) {
+            Util.log("Resharded: &b" + (this.furnaceMap.size() + getOffHeapCount()) + "&7 furnaces from &b" + current + "&7 to &b" + Math.max(shardCount, 0) + "&7 shards");
+        }
+    }
 
     public void clearFurnaceFile() {
-        furnaceFile.delete();
+        this.storage.delete();
     }
 
     void loadFurnaces() {
-        ConfigurationSection section = this.furnaceConfig.getConfigurationSection("furnaces");
-        if (section != null) {
-            for (String string : section.getKeys(true)) {
-                if (section.get(string) instanceof Furnace) {
-                    Furnace furnace = ((Furnace) section.get(string));
-                    if (furnace == null)
-                        return;
-
-                    this.furnaceMap.put(UUID.fromString(string), furnace);
+        boolean catchUp = this.virtualFurnaceAPI.getSettings().isWallClock();
+        long now = System.currentTimeMillis();
+        int[] caughtUp = new int[1];
+        this.storage.load(furnace -> {
+            if (catchUp && furnace.catchUpTo(now)) {
+                caughtUp[0]++;
+            }
+            if (this.offHeapStore != null && furnace.isIdle()) {
+                // The file holds the furnace as it was loaded, unless it caught up
+                if (furnace.takeDirty()) {
+                    this.storage.save(furnace);
+                    this.configChanged = true;
                 }
+                this.offHeapStore.put(furnace);
+                this.storage.release(furnace.getUniqueID());
+                return;
             }
+            this.furnaceMap.put(furnace.getUniqueID(), furnace);
+        });
+        if (!virtualFurnaceAPI.isSilentStart()) {
+            Util.log("Loaded: &b" + (this.furnaceMap.size() + getOffHeapCount()) + "&7 furnaces");
+            if (catchUp) Util.log("Caught up: &b" + caughtUp[0] + "&7 furnaces");
         }
-        if (!virtualFurnaceAPI.isSilentStart())
-            Util.log("Loaded: &b" + this.furnaceMap.size() + "&7 furnaces");
     }
 
     /**
@@ -296,7 +446,8 @@ public class FurnaceManager {
      * @param saveToFile Whether to save to file
      */
     public void saveFurnace(@NotNull Furnace furnace, boolean saveToFile) {
-        this.furnaceConfig.set("furnaces." + furnace.getUniqueID(), furnace);
+        this.storage.save(furnace);
+        this.configChanged = true;
         if (saveToFile)
             saveConfig();
     }
@@ -311,37 +462,62 @@ public class FurnaceManager {
      * @param saveToFile Whether to save changes to file
      */
     public void removeFurnaceFromConfig(@NotNull Furnace furnace, boolean saveToFile) {
-        this.furnaceConfig.set("furnaces." + furnace.getUniqueID(), null);
+        if (this.offHeapStore != null) {
+            // Otherwise it would be written again from its off-heap record
+            synchronized (this.offHeapStore) {
+                this.offHeapStore.remove(furnace.getUniqueID());
+                this.storage.remove(furnace.getUniqueID());
+            }
+        } else {
+            this.storage.remove(furnace.getUniqueID());
+        }
+        this.configChanged = true;
         if (saveToFile)
             saveConfig();
     }
 
     /**
      * Save all furnaces to file
+     * <p>Only furnaces which {@link Furnace#isDirty() changed} since they were last saved are saved again,
+     * the file is only written when anything changed.</p>
      */
     public void saveAll() {
+        saveAllChanged();
+    }
+
+    /**
+     * Save all furnaces to file, like {@link #saveAll()}
+     *
+     * @return Amount of furnaces which were saved
+     */
+    public int saveAllChanged() {
+        int saved = 0;
         for (Furnace furnace : this.furnaceMap.values()) {
-            saveFurnace(furnace, false);
+            if (furnace.takeDirty()) {
+                saveFurnace(furnace, false);
+                saved++;
+            }
         }
-        saveConfig();
+        if (this.configChanged) {
+            saveConfig();
+        }
+        return saved;
     }
 
     /**
      * Save current furnace YAML from RAM to file
+     * <p>The file is written in the background, after all furnaces saved before this</p>
      */
     public void saveConfig() {
-        try {
-            furnaceConfig.save(furnaceFile);
-        } catch (ConcurrentModificationException ignore) {
-            // TODO figure out a proper way to handle this exception and figure out why its happening
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        this.configChanged = false;
+        this.storage.write();
     }
 
-    void shutdown() {
-        saveAll();
+    int shutdown() {
+        int saved = saveAllChanged();
+        this.storage.shutdown();
         furnaceMap.clear();
+        return saved;
     }
 
 }
@@ -1,35 +1,38 @@
 package com.shanebeestudios.api;
 
 import com.shanebeestudios.api.machine.Furnace;
+import com.shanebeestudios.api.property.FurnaceProperties;
 import com.shanebeestudios.api.recipe.*;
+import com.shanebeestudios.api.task.FurnaceTick;
 import com.shanebeestudios.api.util.Util;
 import org.bukkit.*;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.*;
 
 /**
  * Recipe manager for {@link Furnace Furnaces}
  * <p>You can get an instance of this class from <b>{@link VirtualFurnaceAPI#getRecipeManager()}</b></p>
+ * <p>Recipes and fuels are kept in an immutable snapshot, which is replaced as a whole on registration.
+ * Lookups are safe from any thread, registering many entries at once is best done using the bulk methods.</p>
  */
 @SuppressWarnings({"UnusedReturnValue", "unused"})
 public class RecipeManager {
 
     private final VirtualFurnaceAPI virtualFurnaceAPI = VirtualFurnaceAPI.getInstance();
 
-    private final Map<NamespacedKey, FurnaceFuel> furnaceFuelMap;
-    private final Map<NamespacedKey, BrewingFuel> brewingFuelMap;
-    private final Map<NamespacedKey, FurnaceRecipe> furnaceRecipeMap;
-    private final Map<NamespacedKey, BrewingRecipe> brewingRecipeMap;
+    private volatile RecipeRegistry registry = RecipeRegistry.EMPTY;
 
     RecipeManager() {
-        this.furnaceFuelMap = new HashMap<>();
-        this.brewingFuelMap = new HashMap<>();
-        this.furnaceRecipeMap = new HashMap<>();
-        this.brewingRecipeMap = new HashMap<>();
+        RecipeRegistry.Builder builder = new RecipeRegistry.Builder();
+        registerFuels(builder);
+        registerRecipes(builder);
+        this.registry = builder.build();
 
-        registerFuels();
-        registerRecipes();
+        if (!virtualFurnaceAPI.isSilentStart())
+            Util.log("Registered all furnace recipes.");
     }
 
     /**
@@ -39,83 +42,203 @@ public class RecipeManager {
      * @return true if fuel was registered
      */
     public boolean registerFurnaceFuel(FurnaceFuel fuel) {
-        if (this.furnaceFuelMap.containsKey(fuel.getKey())) return false;
-        this.furnaceFuelMap.put(fuel.getKey(), fuel);
-        return true;
+        return registerFurnaceFuels(Collections.singleton(fuel)) > 0;
+    }
+
+    /**
+     * Register many {@link FurnaceFuel}s at once
+     *
+     * @param fuels Fuels to register
+     * @return Amount of fuels which were registered
+     */
+    public int registerFurnaceFuels(Collection<FurnaceFuel> fuels) {
+        return register(fuels, RecipeRegistry.Builder::addFurnaceFuel);
     }
 
     public boolean registerBrewingFuel(BrewingFuel fuel) {
-        if (this.brewingFuelMap.containsKey(fuel.getKey())) return false;
-        this.brewingFuelMap.put(fuel.getKey(), fuel);
-        return true;
+        return registerBrewingFuels(Collections.singleton(fuel)) > 0;
     }
 
+    public int registerBrewingFuels(Collection<BrewingFuel> fuels) {
+        return register(fuels, RecipeRegistry.Builder::addBrewingFuel);
+    }
 
     // Register vanilla fuels in API to make furnace work.
-    private void registerFuels() {
+    private void registerFuels(RecipeRegistry.Builder builder) {
         for (FurnaceFuel fuel : FurnaceFuel.getVanillaFuels()) {
-            registerFurnaceFuel(fuel);
+            builder.addFurnaceFuel(fuel);
         }
 
-        registerBrewingFuel(BrewingFuel.BLAZE_POWDER);
+        builder.addBrewingFuel(BrewingFuel.BLAZE_POWDER);
     }
 
     /**
-     * Register a new {@link FurnaceRecipe}
+     * Register a new {@link FurnaceRecipe} in the {@link RecipeBook#FURNACE furnace} recipe book
      *
      * @param furnaceRecipe new FurnaceRecipe to register
      * @return true if recipe was registered
      */
     public boolean registerFurnaceRecipe(FurnaceRecipe furnaceRecipe) {
-        if (this.furnaceRecipeMap.containsKey(furnaceRecipe.getKey())) return false;
-        this.furnaceRecipeMap.put(furnaceRecipe.getKey(), furnaceRecipe);
-        return true;
+        return registerFurnaceRecipe(furnaceRecipe, RecipeBook.FURNACE);
+    }
+
+    /**
+     * Register a new {@link FurnaceRecipe} in a recipe book
+     *
+     * @param furnaceRecipe new FurnaceRecipe to register
+     * @param recipeBook    Recipe book to register in
+     * @return true if recipe was registered
+     */
+    public boolean registerFurnaceRecipe(FurnaceRecipe furnaceRecipe, RecipeBook recipeBook) {
+        return registerFurnaceRecipes(Collections.singleton(furnaceRecipe), recipeBook) > 0;
+    }
+
+    /**
+     * Register many {@link FurnaceRecipe}s at once in the {@link RecipeBook#FURNACE furnace} recipe book
+     *
+     * @param furnaceRecipes FurnaceRecipes to register
+     * @return Amount of recipes which were registered
+     */
+    public int registerFurnaceRecipes(Collection<FurnaceRecipe> furnaceRecipes) {
+        return registerFurnaceRecipes(furnaceRecipes, RecipeBook.FURNACE);
+    }
+
+    /**
+     * Register many {@link FurnaceRecipe}s at once in a recipe book
+     *
+     * @param furnaceRecipes FurnaceRecipes to register
+     * @param recipeBook     Recipe book to register in
+     * @return Amount of recipes which were registered
+     */
+    public int registerFurnaceRecipes(Collection<FurnaceRecipe> furnaceRecipes, RecipeBook recipeBook) {
+        return register(furnaceRecipes, (builder, recipe) -> builder.addFurnaceRecipe(recipe, recipeBook));
     }
 
     public boolean registerBrewingRecipe(BrewingRecipe brewingRecipe) {
-        if (this.brewingRecipeMap.containsKey(brewingRecipe.getKey())) return false;
-        this.brewingRecipeMap.put(brewingRecipe.getKey(), brewingRecipe);
-        return true;
+        return registerBrewingRecipes(Collections.singleton(brewingRecipe)) > 0;
     }
 
-    // Register vanilla furnace recipes.
-    private void registerRecipes() {
-        for (FurnaceRecipe recipe : FurnaceRecipe.getVanillaFurnaceRecipes())
-            registerFurnaceRecipe(recipe);
+    public int registerBrewingRecipes(Collection<BrewingRecipe> brewingRecipes) {
+        return register(brewingRecipes, RecipeRegistry.Builder::addBrewingRecipe);
+    }
 
+    // Register vanilla recipes, the furnace recipes were already loaded on the main thread when the API was created
+    private void registerRecipes(RecipeRegistry.Builder builder) {
         for (BrewingRecipe recipe : BrewingRecipe.getVanillaBrewingRecipes()) {
-            registerBrewingRecipe(recipe);
+            builder.addBrewingRecipe(recipe);
         }
 
-        if (!virtualFurnaceAPI.isSilentStart())
-            Util.log("Registered all furnace recipes.");
+        for (FurnaceRecipe recipe : FurnaceRecipe.getVanillaFurnaceRecipes())
+            builder.addFurnaceRecipe(recipe, RecipeBook.FURNACE);
+
+        for (FurnaceRecipe recipe : FurnaceRecipe.getVanillaSmokingRecipes())
+            builder.addFurnaceRecipe(recipe, RecipeBook.SMOKING);
+
+        for (FurnaceRecipe recipe : FurnaceRecipe.getVanillaBlastingRecipes())
+            builder.addFurnaceRecipe(recipe, RecipeBook.BLASTING);
+    }
+
+    // Build and publish the next snapshot, only if anything was added
+    private synchronized <T> int register(Collection<T> entries, BiPredicate<RecipeRegistry.Builder, T> add) {
+        RecipeRegistry.Builder builder = this.registry.toBuilder();
+        int added = 0;
+        for (T entry : entries) {
+            if (add.test(builder, entry)) added++;
+        }
+        if (added > 0) {
+            this.registry = builder.build();
+        }
+        return added;
+    }
+
+    /**
+     * Replace all registered recipes and fuels at once
+     * <p>The new set starts out with the vanilla recipes and fuels, the changes add your own to it.
+     * It is built in the background, together with its lookup tables, and swapped in between two ticks,
+     * so the tick loop never waits for it and never sees a half built set.</p>
+     * <p>The changes are applied off the main thread. When they throw, the registered recipes are left untouched
+     * and the returned future completes exceptionally. Anything registered while the reload was building is replaced.</p>
+     * <p>Machines whose recipe or fuel is no longer registered stop cooking, brewing or burning it,
+     * and all machines are woken up to pick up recipes they can now use.</p>
+     *
+     * @param changes Changes to the vanilla recipes and fuels
+     * @return Future completed once the new recipes and fuels are in use
+     */
+    public CompletableFuture<Void> reload(Consumer<RecipeReload> changes) {
+        return CompletableFuture.supplyAsync(() -> {
+            RecipeRegistry.Builder builder = new RecipeRegistry.Builder();
+            registerFuels(builder);
+            registerRecipes(builder);
+            changes.accept(new RecipeReload(builder));
+            return builder.build();
+        }).thenCompose(this::publish);
+    }
+
+    // Swap in a reloaded snapshot when no machine is being ticked
+    private CompletableFuture<Void> publish(RecipeRegistry registry) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        FurnaceTick furnaceTick = this.virtualFurnaceAPI.getFurnaceTick();
+        Runnable swap = () -> {
+            synchronized (this) {
+                this.registry = registry;
+            }
+            if (furnaceTick != null) furnaceTick.wakeAll();
+            future.complete(null);
+        };
+        if (furnaceTick != null) {
+            furnaceTick.runBetweenTicks(swap);
+        } else {
+            swap.run();
+        }
+        return future;
     }
 
     /**
-     * Get a map of all {@link FurnaceFuel}s
+     * Get the version of the registered recipes and fuels
+     * <p>This changes whenever recipes or fuels are registered, rebuilt or reloaded,
+     * machines use it to know when their resolved recipe and fuel are outdated.</p>
+     *
+     * @return Current version
+     */
+    public int getVersion() {
+        return this.registry.getVersion();
+    }
+
+    /**
+     * Get an immutable map of all {@link FurnaceFuel}s
      *
      * @return Map of Fuels
      */
     public Map<NamespacedKey, FurnaceFuel> getFurnaceFuels() {
-        return this.furnaceFuelMap;
+        return this.registry.getFurnaceFuels();
     }
 
 
     public Map<NamespacedKey, BrewingFuel> getBrewingFuels() {
-        return this.brewingFuelMap;
+        return this.registry.getBrewingFuels();
     }
 
     /**
-     * Get a map of all {@link FurnaceRecipe}s
+     * Get an immutable map of all {@link FurnaceRecipe}s in the {@link RecipeBook#FURNACE furnace} recipe book
      *
      * @return Map of FurnaceRecipes
      */
     public Map<NamespacedKey, FurnaceRecipe> getFurnaceRecipes() {
-        return this.furnaceRecipeMap;
+        return getFurnaceRecipes(RecipeBook.FURNACE);
+    }
+
+    /**
+     * Get an immutable map of all {@link FurnaceRecipe}s in a recipe book
+     *
+     * @param recipeBook Recipe book to get recipes from
+     * @return Map of FurnaceRecipes
+     */
+    public Map<NamespacedKey, FurnaceRecipe> getFurnaceRecipes(RecipeBook recipeBook) {
+        return this.registry.getFurnaceRecipes(recipeBook);
     }
 
     public Map<NamespacedKey, BrewingRecipe> getBrewingRecipes() {
-        return this.brewingRecipeMap;
+        return this.registry.getBrewingRecipes();
     }
 
     /**
@@ -125,22 +248,32 @@ public class RecipeManager {
      * @return Fuel from recipe
      */
     public FurnaceFuel getFuelByMaterial(Material material) {
-        for (FurnaceFuel fuel : this.furnaceFuelMap.values()) {
-            if (fuel.matchFuel(material)) {
-                return fuel;
-            }
-        }
-        return null;
+        return this.registry.getFuelByMaterial(material);
     }
 
 
     public BrewingFuel getBrewingFuelByMaterial(Material material) {
-        for (BrewingFuel fuel : this.brewingFuelMap.values()) {
-            if (fuel.matchFuel(material)) {
-                return fuel;
-            }
-        }
-        return null;
+        return this.registry.getBrewingFuelByMaterial(material);
+    }
+
+    /**
+     * Check whether a material is a registered {@link FurnaceFuel} which a vanilla furnace does not accept
+     * <p>Such fuels have to be put in the fuel slot of a furnace inventory by the API</p>
+     *
+     * @param material Material to check
+     * @return True if material is a custom fuel
+     */
+    public boolean isCustomFuel(Material material) {
+        return this.registry.isCustomFuel(material);
+    }
+
+    /**
+     * Rebuild the material lookup tables of all registered fuels
+     * <p>This is done for you when fuels are registered and when the server reloads its data packs,
+     * but should be called when the contents of a tag used by a fuel change otherwise.</p>
+     */
+    public synchronized void rebuildFuelIndex() {
+        this.registry = this.registry.toBuilder().build();
     }
 
     /**
@@ -150,37 +283,48 @@ public class RecipeManager {
      * @return Fuel from key
      */
     public FurnaceFuel getFuelByKey(NamespacedKey key) {
-        return this.furnaceFuelMap.get(key);
+        return this.registry.getFurnaceFuels().get(key);
     }
 
     public BrewingFuel getBrewFuelByKey(NamespacedKey key) {
-        return this.brewingFuelMap.get(key);
+        return this.registry.getBrewingFuels().get(key);
     }
 
     /**
-     * Get a {@link FurnaceRecipe} by ingredient
+     * Get a {@link FurnaceRecipe} by ingredient from the {@link RecipeBook#FURNACE furnace} recipe book
      *
      * @param ingredient Ingredient of FurnaceRecipe
      * @return FurnaceRecipe from ingredient
      */
     public FurnaceRecipe getByIngredient(Material ingredient) {
-        for (FurnaceRecipe recipe : this.furnaceRecipeMap.values()) {
-            if (recipe.getIngredient() == ingredient) {
-                return recipe;
-            }
-        }
-        return null;
+        return this.registry.getByIngredient(ingredient, RecipeBook.FURNACE);
+    }
+
+    /**
+     * Get a {@link FurnaceRecipe} by ingredient from the recipe books of a furnace property
+     *
+     * @param ingredient Ingredient of FurnaceRecipe
+     * @param properties Properties declaring the recipe books to search
+     * @return FurnaceRecipe from ingredient
+     */
+    public FurnaceRecipe getByIngredient(Material ingredient, FurnaceProperties properties) {
+        return this.registry.getByIngredient(ingredient, properties.getRecipeBookArray());
+    }
+
+    /**
+     * Get a {@link FurnaceRecipe} for an ingredient item from the recipe books of a furnace property
+     * <p>Recipes with an {@link IngredientMatch} for the item go before recipes which only match its type</p>
+     *
+     * @param ingredient Ingredient item of FurnaceRecipe
+     * @param properties Properties declaring the recipe books to search
+     * @return FurnaceRecipe from ingredient
+     */
+    public FurnaceRecipe getByIngredient(ItemStack ingredient, FurnaceProperties properties) {
+        return this.registry.getByIngredient(ingredient, properties.getRecipeBookArray());
     }
 
     public BrewingRecipe getBrewingRecipeByIngredient(ItemStack ingredient, ItemStack bottle) {
-        for (BrewingRecipe recipe : this.brewingRecipeMap.values()) {
-            ItemStack checkItem = ingredient.clone();
-            checkItem.setAmount(1);
-            if (recipe.getIngredient().equals(checkItem) && recipe.getInputBottle().isSimilar(bottle)) {
-                return recipe;
-            }
-        }
-        return null;
+        return this.registry.getBrewingRecipeByIngredient(ingredient, bottle);
     }
 
     /**
@@ -190,11 +334,11 @@ public class RecipeManager {
      * @return FurnaceRecipe from key
      */
     public FurnaceRecipe getFurnaceRecipeByKey(NamespacedKey key) {
-        return this.furnaceRecipeMap.get(key);
+        return this.registry.getFurnaceRecipes(RecipeBook.FURNACE).get(key);
     }
 
     public BrewingRecipe getBrewingFurnaceRecipeByKey(NamespacedKey key) {
-        return this.brewingRecipeMap.get(key);
+        return this.registry.getBrewingRecipes().get(key);
     }
 
 }
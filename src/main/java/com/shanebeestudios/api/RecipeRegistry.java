@@ -0,0 +1,273 @@
+package com.shanebeestudios.api;
+
+import com.shanebeestudios.api.recipe.*;
+import org.bukkit.*;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable snapshot of all registered recipes and fuels, together with their lookup indexes
+ * <p>Every change builds a new snapshot which the {@link RecipeManager} publishes in one step,
+ * so snapshots can be read from any thread without locking.</p>
+ */
+final class RecipeRegistry {
+
+    // Versions are unique rather than consecutive, a reload may be built alongside other registrations
+    private static final AtomicInteger VERSIONS = new AtomicInteger();
+    static final RecipeRegistry EMPTY = new Builder().build();
+
+    private final int version;
+    private final Map<NamespacedKey, FurnaceFuel> furnaceFuels;
+    private final Map<NamespacedKey, BrewingFuel> brewingFuels;
+    private final Map<RecipeBook, Map<NamespacedKey, FurnaceRecipe>> furnaceRecipes;
+    private final Map<NamespacedKey, BrewingRecipe> brewingRecipes;
+    // Furnace recipes of each recipe book, indexed by the ordinal of their ingredient
+    private final FurnaceRecipe[][] recipesByIngredient;
+    // Furnace recipes of each recipe book which match on more than the type, indexed by the ordinal of their ingredient's type
+    private final ItemRecipeIndex[][] itemRecipesByIngredient;
+    // Fuels indexed by the ordinal of each material they match, with tags expanded
+    private final FurnaceFuel[] fuelsByMaterial;
+    private final BrewingFuel[] brewingFuelsByMaterial;
+    // Materials with a registered fuel which a vanilla furnace does not accept as fuel
+    private final Set<Material> customFuels;
+    // Brewing recipes grouped by the ordinal of their ingredient's type
+    private final BrewingRecipe[][] brewingRecipesByIngredient;
+
+    private RecipeRegistry(Builder builder) {
+        this.version = VERSIONS.incrementAndGet();
+        this.furnaceFuels = Collections.unmodifiableMap(builder.furnaceFuels);
+        this.brewingFuels = Collections.unmodifiableMap(builder.brewingFuels);
+        this.furnaceRecipes = new EnumMap<>(RecipeBook.class);
+        this.recipesByIngredient = new FurnaceRecipe[RecipeBook.values().length][];
+        this.itemRecipesByIngredient = new ItemRecipeIndex[RecipeBook.values().length][];
+        for (RecipeBook book : RecipeBook.values()) {
+            Map<NamespacedKey, FurnaceRecipe> recipes = Collections.unmodifiableMap(builder.furnaceRecipes.get(book));
+            this.furnaceRecipes.put(book, recipes);
+            this.recipesByIngredient[book.ordinal()] = buildRecipeIndex(recipes.values());
+            this.itemRecipesByIngredient[book.ordinal()] = buildItemRecipeIndex(recipes.values());
+        }
+        this.brewingRecipes = Collections.unmodifiableMap(builder.brewingRecipes);
+        this.fuelsByMaterial = buildFuelIndex(this.furnaceFuels.values(), new FurnaceFuel[Material.values().length]);
+        this.brewingFuelsByMaterial = buildFuelIndex(this.brewingFuels.values(), new BrewingFuel[Material.values().length]);
+        this.customFuels = buildCustomFuels(this.fuelsByMaterial);
+        this.brewingRecipesByIngredient = buildBrewingRecipeIndex(this.brewingRecipes.values());
+    }
+
+    int getVersion() {
+        return this.version;
+    }
+
+    Map<NamespacedKey, FurnaceFuel> getFurnaceFuels() {
+        return this.furnaceFuels;
+    }
+
+    Map<NamespacedKey, BrewingFuel> getBrewingFuels() {
+        return this.brewingFuels;
+    }
+
+    Map<NamespacedKey, FurnaceRecipe> getFurnaceRecipes(RecipeBook book) {
+        return this.furnaceRecipes.get(book);
+    }
+
+    Map<NamespacedKey, BrewingRecipe> getBrewingRecipes() {
+        return this.brewingRecipes;
+    }
+
+    FurnaceRecipe getByIngredient(Material ingredient, RecipeBook book) {
+        if (ingredient == null) return null;
+        return this.recipesByIngredient[book.ordinal()][ingredient.ordinal()];
+    }
+
+    FurnaceRecipe getByIngredient(ItemStack ingredient, RecipeBook[] books) {
+        if (ingredient == null) return null;
+        int ordinal = ingredient.getType().ordinal();
+        for (RecipeBook book : books) {
+            // Recipes for the specific item go before recipes for its type
+            ItemRecipeIndex itemRecipes = this.itemRecipesByIngredient[book.ordinal()][ordinal];
+            if (itemRecipes != null) {
+                FurnaceRecipe recipe = itemRecipes.get(ingredient);
+                if (recipe != null) return recipe;
+            }
+            FurnaceRecipe recipe = this.recipesByIngredient[book.ordinal()][ordinal];
+            if (recipe != null) return recipe;
+        }
+        return null;
+    }
+
+    FurnaceRecipe getByIngredient(Material ingredient, RecipeBook[] books) {
+        if (ingredient == null) return null;
+        int ordinal = ingredient.ordinal();
+        for (RecipeBook book : books) {
+            FurnaceRecipe recipe = this.recipesByIngredient[book.ordinal()][ordinal];
+            if (recipe != null) return recipe;
+        }
+        return null;
+    }
+
+    FurnaceFuel getFuelByMaterial(Material material) {
+        if (material == null) return null;
+        return this.fuelsByMaterial[material.ordinal()];
+    }
+
+    BrewingFuel getBrewingFuelByMaterial(Material material) {
+        if (material == null) return null;
+        return this.brewingFuelsByMaterial[material.ordinal()];
+    }
+
+    boolean isCustomFuel(Material material) {
+        return material != null && this.customFuels.contains(material);
+    }
+
+    BrewingRecipe getBrewingRecipeByIngredient(ItemStack ingredient, ItemStack bottle) {
+        if (ingredient == null || bottle == null) return null;
+        BrewingRecipe[] recipes = this.brewingRecipesByIngredient[ingredient.getType().ordinal()];
+        if (recipes == null) return null;
+        for (BrewingRecipe recipe : recipes) {
+            // isSimilar ignores the amount, so the ingredient does not have to be copied
+            if (recipe.getIngredient().isSimilar(ingredient) && recipe.getInputBottle().isSimilar(bottle)) {
+                return recipe;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start building the next snapshot, containing everything in this one
+     *
+     * @return Builder for the next snapshot
+     */
+    Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.furnaceFuels.putAll(this.furnaceFuels);
+        builder.brewingFuels.putAll(this.brewingFuels);
+        this.furnaceRecipes.forEach((book, recipes) -> builder.furnaceRecipes.get(book).putAll(recipes));
+        builder.brewingRecipes.putAll(this.brewingRecipes);
+        return builder;
+    }
+
+    // The first recipe for an ingredient wins
+    private static FurnaceRecipe[] buildRecipeIndex(Collection<FurnaceRecipe> furnaceRecipes) {
+        FurnaceRecipe[] recipes = new FurnaceRecipe[Material.values().length];
+        for (FurnaceRecipe recipe : furnaceRecipes) {
+            if (recipe.getIngredientMatch() != null) continue;
+            int ordinal = recipe.getIngredient().ordinal();
+            if (recipes[ordinal] == null) {
+                recipes[ordinal] = recipe;
+            }
+        }
+        return recipes;
+    }
+
+    private static ItemRecipeIndex[] buildItemRecipeIndex(Collection<FurnaceRecipe> furnaceRecipes) {
+        Map<Material, List<FurnaceRecipe>> grouped = new EnumMap<>(Material.class);
+        for (FurnaceRecipe recipe : furnaceRecipes) {
+            if (recipe.getIngredientMatch() == null) continue;
+            grouped.computeIfAbsent(recipe.getIngredient(), material -> new ArrayList<>()).add(recipe);
+        }
+        ItemRecipeIndex[] recipes = new ItemRecipeIndex[Material.values().length];
+        grouped.forEach((material, list) -> recipes[material.ordinal()] = new ItemRecipeIndex(list));
+        return recipes;
+    }
+
+    // Resolve every material each fuel matches, the first fuel matching a material wins
+    private static <F extends Fuel> F[] buildFuelIndex(Collection<F> fuels, F[] index) {
+        for (F fuel : fuels) {
+            ItemStack fuelItem = fuel.getFuelItem();
+            if (fuelItem != null && index[fuelItem.getType().ordinal()] == null) {
+                index[fuelItem.getType().ordinal()] = fuel;
+            }
+            Tag<Material> tag = fuel.getTag();
+            if (tag != null) {
+                for (Material material : tag.getValues()) {
+                    if (index[material.ordinal()] == null) {
+                        index[material.ordinal()] = fuel;
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    // Vanilla fuels are resolved from the vanilla list rather than the registered fuels,
+    // a vanilla furnace keeps accepting them even when they were removed from the API
+    private static Set<Material> buildCustomFuels(FurnaceFuel[] fuelsByMaterial) {
+        FurnaceFuel[] vanilla = buildFuelIndex(FurnaceFuel.getVanillaFuels(), new FurnaceFuel[fuelsByMaterial.length]);
+        Set<Material> customFuels = EnumSet.noneOf(Material.class);
+        Material[] materials = Material.values();
+        for (int i = 0; i < fuelsByMaterial.length; i++) {
+            if (fuelsByMaterial[i] != null && vanilla[i] == null) {
+                customFuels.add(materials[i]);
+            }
+        }
+        return customFuels;
+    }
+
+    // Keeps registration order within each ingredient type
+    private static BrewingRecipe[][] buildBrewingRecipeIndex(Collection<BrewingRecipe> brewingRecipes) {
+        Map<Material, List<BrewingRecipe>> grouped = new EnumMap<>(Material.class);
+        for (BrewingRecipe recipe : brewingRecipes) {
+            grouped.computeIfAbsent(recipe.getIngredient().getType(), material -> new ArrayList<>()).add(recipe);
+        }
+        BrewingRecipe[][] recipes = new BrewingRecipe[Material.values().length][];
+        grouped.forEach((material, list) -> recipes[material.ordinal()] = list.toArray(new BrewingRecipe[0]));
+        return recipes;
+    }
+
+    /**
+     * Collects changes for the next {@link RecipeRegistry} snapshot
+     * <p>Entries with a key which is already registered are ignored</p>
+     */
+    static final class Builder {
+
+        private final Map<NamespacedKey, FurnaceFuel> furnaceFuels = new LinkedHashMap<>();
+        private final Map<NamespacedKey, BrewingFuel> brewingFuels = new LinkedHashMap<>();
+        private final Map<RecipeBook, Map<NamespacedKey, FurnaceRecipe>> furnaceRecipes = new EnumMap<>(RecipeBook.class);
+        private final Map<NamespacedKey, BrewingRecipe> brewingRecipes = new LinkedHashMap<>();
+
+        Builder() {
+            for (RecipeBook book : RecipeBook.values()) {
+                this.furnaceRecipes.put(book, new LinkedHashMap<>());
+            }
+        }
+
+        boolean addFurnaceFuel(FurnaceFuel fuel) {
+            return this.furnaceFuels.putIfAbsent(fuel.getKey(), fuel) == null;
+        }
+
+        boolean addBrewingFuel(BrewingFuel fuel) {
+            return this.brewingFuels.putIfAbsent(fuel.getKey(), fuel) == null;
+        }
+
+        boolean addFurnaceRecipe(FurnaceRecipe recipe, RecipeBook book) {
+            return this.furnaceRecipes.get(book).putIfAbsent(recipe.getKey(), recipe) == null;
+        }
+
+        boolean addBrewingRecipe(BrewingRecipe recipe) {
+            return this.brewingRecipes.putIfAbsent(recipe.getKey(), recipe) == null;
+        }
+
+        boolean removeFurnaceFuel(NamespacedKey key) {
+            return this.furnaceFuels.remove(key) != null;
+        }
+
+        boolean removeBrewingFuel(NamespacedKey key) {
+            return this.brewingFuels.remove(key) != null;
+        }
+
+        boolean removeFurnaceRecipe(NamespacedKey key, RecipeBook book) {
+            return this.furnaceRecipes.get(book).remove(key) != null;
+        }
+
+        boolean removeBrewingRecipe(NamespacedKey key) {
+            return this.brewingRecipes.remove(key) != null;
+        }
+
+        RecipeRegistry build() {
+            return new RecipeRegistry(this);
+        }
+
+    }
+
+}
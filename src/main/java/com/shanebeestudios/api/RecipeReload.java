@@ -0,0 +1,122 @@
+package com.shanebeestudios.api;
+
+import com.shanebeestudios.api.recipe.*;
+import org.bukkit.NamespacedKey;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Set of recipes and fuels built by {@link RecipeManager#reload(java.util.function.Consumer)}
+ * <p>A reload starts out with only the vanilla recipes and fuels. Everything added or removed here
+ * replaces all registered recipes and fuels at once, when the reload is done.</p>
+ * <p>Entries with a key which is already in the reload are ignored, like when registering them.</p>
+ */
+@SuppressWarnings({"UnusedReturnValue", "unused"})
+public final class RecipeReload {
+
+    private final RecipeRegistry.Builder builder;
+
+    RecipeReload(RecipeRegistry.Builder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Add a {@link FurnaceFuel}
+     *
+     * @param fuel Fuel to add
+     * @return Returns an instance of itself with the fuel added
+     */
+    public RecipeReload furnaceFuel(@NotNull FurnaceFuel fuel) {
+        this.builder.addFurnaceFuel(fuel);
+        return this;
+    }
+
+    /**
+     * Add a {@link BrewingFuel}
+     *
+     * @param fuel Fuel to add
+     * @return Returns an instance of itself with the fuel added
+     */
+    public RecipeReload brewingFuel(@NotNull BrewingFuel fuel) {
+        this.builder.addBrewingFuel(fuel);
+        return this;
+    }
+
+    /**
+     * Add a {@link FurnaceRecipe} to the {@link RecipeBook#FURNACE furnace} recipe book
+     *
+     * @param furnaceRecipe Recipe to add
+     * @return Returns an instance of itself with the recipe added
+     */
+    public RecipeReload furnaceRecipe(@NotNull FurnaceRecipe furnaceRecipe) {
+        return furnaceRecipe(furnaceRecipe, RecipeBook.FURNACE);
+    }
+
+    /**
+     * Add a {@link FurnaceRecipe} to a recipe book
+     *
+     * @param furnaceRecipe Recipe to add
+     * @param recipeBook    Recipe book to add to
+     * @return Returns an instance of itself with the recipe added
+     */
+    public RecipeReload furnaceRecipe(@NotNull FurnaceRecipe furnaceRecipe, @NotNull RecipeBook recipeBook) {
+        this.builder.addFurnaceRecipe(furnaceRecipe, recipeBook);
+        return this;
+    }
+
+    /**
+     * Add a {@link BrewingRecipe}
+     *
+     * @param brewingRecipe Recipe to add
+     * @return Returns an instance of itself with the recipe added
+     */
+    public RecipeReload brewingRecipe(@NotNull BrewingRecipe brewingRecipe) {
+        this.builder.addBrewingRecipe(brewingRecipe);
+        return this;
+    }
+
+    /**
+     * Remove a {@link FurnaceFuel}, such as a vanilla fuel
+     *
+     * @param key Key of fuel
+     * @return Returns an instance of itself with the fuel removed
+     */
+    public RecipeReload removeFurnaceFuel(@NotNull NamespacedKey key) {
+        this.builder.removeFurnaceFuel(key);
+        return this;
+    }
+
+    /**
+     * Remove a {@link BrewingFuel}, such as a vanilla fuel
+     *
+     * @param key Key of fuel
+     * @return Returns an instance of itself with the fuel removed
+     */
+    public RecipeReload removeBrewingFuel(@NotNull NamespacedKey key) {
+        this.builder.removeBrewingFuel(key);
+        return this;
+    }
+
+    /**
+     * Remove a {@link FurnaceRecipe} from a recipe book, such as a vanilla recipe
+     *
+     * @param key        Key of recipe
+     * @param recipeBook Recipe book to remove from
+     * @return Returns an instance of itself with the recipe removed
+     */
+    public RecipeReload removeFurnaceRecipe(@NotNull NamespacedKey key, @NotNull RecipeBook recipeBook) {
+        this.builder.removeFurnaceRecipe(key, recipeBook);
+        return this;
+    }
+
+    /**
+     * Remove a {@link BrewingRecipe}, such as a vanilla recipe
+     *
+     * @param key Key of recipe
+     * @return Returns an instance of itself with the recipe removed
+     */
+    public RecipeReload removeBrewingRecipe(@NotNull NamespacedKey key) {
+        this.builder.removeBrewingRecipe(key);
+        return this;
+    }
+
+}
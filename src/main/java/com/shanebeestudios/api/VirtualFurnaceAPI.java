@@ -2,7 +2,9 @@ package com.shanebeestudios.api;
 
 import com.shanebeestudios.api.machine.*;
 import com.shanebeestudios.api.property.*;
+import com.shanebeestudios.api.recipe.FurnaceRecipe;
 import com.shanebeestudios.api.task.FurnaceTick;
+import com.shanebeestudios.api.task.MainThreadSync;
 import com.shanebeestudios.api.tile.FurnaceTile;
 import com.shanebeestudios.api.util.Util;
 import org.bukkit.Bukkit;
@@ -32,19 +34,17 @@ public class VirtualFurnaceAPI {
 
     private final String apiVersion;
     private final JavaPlugin plugin;
+    private final VirtualFurnaceSettings settings;
     private boolean enabled = true;
-    private boolean silentStart = false;
-    private boolean clearDataFileOnDisable = false;
     private RecipeManager recipeManager;
     private FurnaceManager furnaceManager;
     private BrewingManager brewingManager;
     // private TileManager tileManager;
     private FurnaceTick furnaceTick;
+    private MainThreadSync mainThreadSync;
 
     public VirtualFurnaceAPI(@NotNull JavaPlugin javaPlugin, boolean silentStart, boolean disableMetrics, boolean clearDataFileOnDisable) {
-        this(javaPlugin, silentStart, disableMetrics);
-
-        this.clearDataFileOnDisable = clearDataFileOnDisable;
+        this(javaPlugin, new VirtualFurnaceSettings().silentStart(silentStart).disableMetrics(disableMetrics).clearDataFileOnDisable(clearDataFileOnDisable));
     }
 
     /**
@@ -65,16 +65,28 @@ public class VirtualFurnaceAPI {
      * @param disableMetrics Disable metrics for VirtualFurnaceAPI (If you are using metrics in your own plugin)
      */
     public VirtualFurnaceAPI(@NotNull JavaPlugin javaPlugin, boolean silentStart, boolean disableMetrics) {
+        this(javaPlugin, new VirtualFurnaceSettings().silentStart(silentStart).disableMetrics(disableMetrics));
+    }
+
+    /**
+     * Create a new instance of the VirtualFurnaceAPI
+     *
+     * @param javaPlugin Your plugin
+     * @param settings   Settings for this instance
+     */
+    public VirtualFurnaceAPI(@NotNull JavaPlugin javaPlugin, @NotNull VirtualFurnaceSettings settings) {
+        long start = System.nanoTime();
         instance = this;
         this.plugin = javaPlugin;
+        this.settings = settings;
         this.apiVersion = getVersion();
-        this.silentStart = silentStart;
         if (!Util.classExists("org.bukkit.persistence.PersistentDataHolder")) {
             this.recipeManager = null;
             this.furnaceManager = null;
             this.brewingManager = null;
             //this.tileManager = null;
             this.furnaceTick = null;
+            this.mainThreadSync = null;
             //this.tileTick = null;
             Util.error("&cFailed to initialize VirtualFurnaceAPI");
             Util.error("&7  - Bukkit version: &b" + Bukkit.getBukkitVersion() + " &7is not supported!");
@@ -82,7 +94,10 @@ public class VirtualFurnaceAPI {
             return;
         }
 
-        if (!disableMetrics) {
+        // The server's recipes are read on the main thread, the cache of vanilla recipes is read in the background meanwhile
+        FurnaceRecipe.loadVanillaRecipes();
+
+        if (!settings.isDisableMetrics()) {
             new Metrics(javaPlugin, 7021, this);
         }
 
@@ -91,13 +106,16 @@ public class VirtualFurnaceAPI {
         this.brewingManager = new BrewingManager(this);
         //this.tileManager = new TileManager(this);
         //this.tileManager.load();
+        this.mainThreadSync = new MainThreadSync(this);
+        this.mainThreadSync.start();
         this.furnaceTick = new FurnaceTick(this);
         this.furnaceTick.start();
         //this.tileTick = new TileTick(this);
         //this.tileTick.start();
         Bukkit.getPluginManager().registerEvents(new FurnaceListener(this), javaPlugin);
-        if (!silentStart) {
-            Util.log("Initialized VirtualFurnaceAPI version: &b" + getVersion());
+        if (!settings.isSilentStart()) {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            Util.log("Initialized VirtualFurnaceAPI version: &b" + getVersion() + " &7in &b" + millis + "ms");
         }
 
     }
@@ -114,11 +132,20 @@ public class VirtualFurnaceAPI {
     }
 
     public boolean isSilentStart() {
-        return silentStart;
+        return settings.isSilentStart();
     }
 
     public boolean isClearDataFileOnDisable() {
-        return clearDataFileOnDisable;
+        return settings.isClearDataFileOnDisable();
+    }
+
+    /**
+     * Get the settings this instance was created with
+     *
+     * @return Settings of this instance
+     */
+    public VirtualFurnaceSettings getSettings() {
+        return settings;
     }
 
     public BrewingManager getBrewingManager() {
@@ -134,12 +161,17 @@ public class VirtualFurnaceAPI {
         this.furnaceTick.cancel();
         //this.tileTick.cancel();
         this.furnaceTick = null;
+        // Apply anything still waiting for the main thread
+        this.mainThreadSync.run();
+        this.mainThreadSync.cancel();
+        this.mainThreadSync = null;
         //this.tileTick = null;
-        this.furnaceManager.shutdown();
+        int furnaces = this.furnaceManager.shutdown();
+        int stands = this.brewingManager.saveAllChanged();
         this.brewingManager.shutdown();
         // this.tileManager.shutdown();
 
-        if (clearDataFileOnDisable) {
+        if (settings.isClearDataFileOnDisable()) {
             this.furnaceManager.clearFurnaceFile();
             this.brewingManager.clearBrewingFile();
         }
@@ -149,8 +181,10 @@ public class VirtualFurnaceAPI {
         //this.tileManager = null;
         this.recipeManager = null;
 
-        if (!silentStop)
+        if (!silentStop) {
+            Util.log("Saved: &b" + furnaces + "&7 furnaces and &b" + stands + "&7 brewing stands");
             Util.log("Shut down API!");
+        }
     }
 
     /**
@@ -198,6 +232,16 @@ public class VirtualFurnaceAPI {
         return furnaceTick;
     }
 
+    /**
+     * Get an instance of the main thread sync task
+     * <p>Used to apply changes from the async furnace tick on the main thread</p>
+     *
+     * @return Instance of main thread sync
+     */
+    public MainThreadSync getMainThreadSync() {
+        return mainThreadSync;
+    }
+
     /**
      * Get the version of this API
      *
@@ -0,0 +1,303 @@
+package com.shanebeestudios.api;
+
+import com.shanebeestudios.api.event.TickEventMode;
+import com.shanebeestudios.api.storage.StorageType;
+import com.shanebeestudios.api.task.TickMode;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Settings used when creating a new {@link VirtualFurnaceAPI}
+ * <p>Create a new instance, chain the options you would like to change
+ * and pass it into <b>{@link VirtualFurnaceAPI#VirtualFurnaceAPI(org.bukkit.plugin.java.JavaPlugin, VirtualFurnaceSettings)}</b></p>
+ */
+@SuppressWarnings("unused")
+public class VirtualFurnaceSettings {
+
+    private boolean silentStart = false;
+    private boolean disableMetrics = false;
+    private boolean clearDataFileOnDisable = false;
+    private int tickThreads = 1;
+    private int tickShards = 0;
+    private TickMode tickMode = TickMode.PER_TICK;
+    private long tickBudget = 0;
+    private boolean wallClock = false;
+    private boolean offHeap = false;
+    private TickEventMode tickEventMode = TickEventMode.PER_MACHINE;
+    private StorageType storageType = StorageType.YAML;
+    private int storageShards = 0;
+
+    /**
+     * Set whether the API should skip logging messages on startup
+     *
+     * @param silentStart Whether to start silently
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings silentStart(boolean silentStart) {
+        this.silentStart = silentStart;
+        return this;
+    }
+
+    /**
+     * Check whether the API will skip logging messages on startup
+     *
+     * @return True if starting silently
+     */
+    public boolean isSilentStart() {
+        return this.silentStart;
+    }
+
+    /**
+     * Set whether bStats metrics should be disabled for the API
+     * <p>If you plan on using bStats metrics in your plugin,
+     * disable the bStats metrics for the API to prevent conflict.</p>
+     *
+     * @param disableMetrics Whether to disable metrics
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings disableMetrics(boolean disableMetrics) {
+        this.disableMetrics = disableMetrics;
+        return this;
+    }
+
+    /**
+     * Check whether bStats metrics are disabled for the API
+     *
+     * @return True if metrics are disabled
+     */
+    public boolean isDisableMetrics() {
+        return this.disableMetrics;
+    }
+
+    /**
+     * Set whether the data files should be deleted when the API is disabled
+     *
+     * @param clearDataFileOnDisable Whether to clear data files on disable
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings clearDataFileOnDisable(boolean clearDataFileOnDisable) {
+        this.clearDataFileOnDisable = clearDataFileOnDisable;
+        return this;
+    }
+
+    /**
+     * Check whether the data files will be deleted when the API is disabled
+     *
+     * @return True if data files are cleared on disable
+     */
+    public boolean isClearDataFileOnDisable() {
+        return this.clearDataFileOnDisable;
+    }
+
+    /**
+     * Set the amount of worker threads used to tick machines
+     * <p>With more than 1 thread, machine shards are ticked in parallel.
+     * Listeners for machine events should then be thread safe.</p>
+     * <p>Default = 1</p>
+     *
+     * @param tickThreads Amount of tick threads (minimum 1)
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings tickThreads(int tickThreads) {
+        this.tickThreads = Math.max(1, tickThreads);
+        return this;
+    }
+
+    /**
+     * Get the amount of worker threads used to tick machines
+     *
+     * @return Amount of tick threads
+     */
+    public int getTickThreads() {
+        return this.tickThreads;
+    }
+
+    /**
+     * Set the amount of shards machines are split into
+     * <p>A machine always stays on the same shard, and a shard is only ever ticked by one thread at a time.
+     * Using a few more shards than threads helps to even out the load.</p>
+     * <p>Default = 0 (1 shard when single threaded, otherwise 4 shards per thread)</p>
+     *
+     * @param tickShards Amount of shards (0 for automatic)
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings tickShards(int tickShards) {
+        this.tickShards = Math.max(0, tickShards);
+        return this;
+    }
+
+    /**
+     * Get the amount of shards machines are split into
+     *
+     * @return Amount of shards
+     */
+    public int getTickShards() {
+        if (this.tickShards > 0) return this.tickShards;
+        return this.tickThreads == 1 ? 1 : this.tickThreads * 4;
+    }
+
+    /**
+     * Set how active machines are ticked
+     * <p>Default = {@link TickMode#PER_TICK}</p>
+     *
+     * @param tickMode Mode to tick machines with
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings tickMode(@NotNull TickMode tickMode) {
+        this.tickMode = tickMode;
+        return this;
+    }
+
+    /**
+     * Get how active machines are ticked
+     *
+     * @return Mode machines are ticked with
+     */
+    public TickMode getTickMode() {
+        return this.tickMode;
+    }
+
+    /**
+     * Set the time a single tick run may take before it stops
+     * <p>When the budget runs out, the next run continues where the last one stopped.
+     * Machines which were skipped catch up on the missed ticks once they are reached again,
+     * see {@link com.shanebeestudios.api.task.FurnaceTick#getLagTicks()}</p>
+     * <p>Default = 0 (no limit)</p>
+     *
+     * @param tickBudget Time budget in microseconds (0 for no limit)
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings tickBudget(long tickBudget) {
+        this.tickBudget = Math.max(0, tickBudget);
+        return this;
+    }
+
+    /**
+     * Get the time a single tick run may take before it stops
+     *
+     * @return Time budget in microseconds, 0 if there is no limit
+     */
+    public long getTickBudget() {
+        return this.tickBudget;
+    }
+
+    /**
+     * Set whether machines keep running while the server is down or the API is disabled
+     * <p>When enabled, machines loaded from storage catch up on the time passed since they were last saved.
+     * Progress is calculated in one go per machine, events are not called for these ticks.</p>
+     * <p>Default = false</p>
+     *
+     * @param wallClock Whether to catch up on offline time
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings wallClock(boolean wallClock) {
+        this.wallClock = wallClock;
+        return this;
+    }
+
+    /**
+     * Check whether machines catch up on time passed while the server was down
+     *
+     * @return True if using wall clock mode
+     */
+    public boolean isWallClock() {
+        return this.wallClock;
+    }
+
+    /**
+     * Set whether inactive furnaces are stored outside of the Java heap
+     * <p>Furnaces which have been idle for a while are moved into off-heap memory,
+     * and are only turned back into objects when they are requested using {@link FurnaceManager#getByID(java.util.UUID)}.
+     * Useful when keeping a large amount of mostly unused furnaces.</p>
+     * <p><b>NOTE:</b> Do not hold on to furnace objects in this mode, always get them by ID.
+     * {@link FurnaceManager#getAllFurnaces()} only includes furnaces which are currently loaded.</p>
+     * <p>Default = false</p>
+     *
+     * @param offHeap Whether to store inactive furnaces off-heap
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings offHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+        return this;
+    }
+
+    /**
+     * Check whether inactive furnaces are stored outside of the Java heap
+     *
+     * @return True if using off-heap storage
+     */
+    public boolean isOffHeap() {
+        return this.offHeap;
+    }
+
+    /**
+     * Set how events which happen every tick are called
+     * <p>Disabling these events can save a lot of time when ticking many machines
+     * and no plugin needs them.</p>
+     * <p>Default = {@link TickEventMode#PER_MACHINE}</p>
+     *
+     * @param tickEventMode Mode to call per tick events with
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings tickEventMode(@NotNull TickEventMode tickEventMode) {
+        this.tickEventMode = tickEventMode;
+        return this;
+    }
+
+    /**
+     * Get how events which happen every tick are called
+     *
+     * @return Mode per tick events are called with
+     */
+    public TickEventMode getTickEventMode() {
+        return this.tickEventMode;
+    }
+
+    /**
+     * Set the format machines are stored in
+     * <p>When switching to {@link StorageType#BINARY} or {@link StorageType#JOURNAL}, existing YAML files are converted
+     * the first time the API starts, the YAML files are kept.</p>
+     * <p>Default = {@link StorageType#YAML}</p>
+     *
+     * @param storageType Format to store machines in
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings storageType(@NotNull StorageType storageType) {
+        this.storageType = storageType;
+        return this;
+    }
+
+    /**
+     * Get the format machines are stored in
+     *
+     * @return Format machines are stored in
+     */
+    public StorageType getStorageType() {
+        return this.storageType;
+    }
+
+    /**
+     * Set the amount of shard files machines are spread over
+     * <p>Machines are spread by the hash of their ID, only shards with changed machines are written
+     * and shards are loaded in parallel. When the amount changes, machines are moved to the new shards
+     * the next time the API starts, or right away using {@link FurnaceManager#reshard(int)}.
+     * Changing the {@link #storageType(StorageType) storage type} does not convert existing shards.</p>
+     * <p>Default = 0 (all machines in one file)</p>
+     *
+     * @param storageShards Amount of shards
+     * @return This settings instance
+     */
+    public VirtualFurnaceSettings storageShards(int storageShards) {
+        this.storageShards = storageShards;
+        return this;
+    }
+
+    /**
+     * Get the amount of shard files machines are spread over
+     *
+     * @return Amount of shards, 0 if machines are stored in one file
+     */
+    public int getStorageShards() {
+        return this.storageShards;
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.shanebeestudios.api.event;
 
 import org.bukkit.Bukkit;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
 
 /**
  * Abstract event class for easy event calls
@@ -17,7 +19,20 @@ public abstract class Event extends org.bukkit.event.Event {
      * PluginManager to call events</p>
      */
     public void callEvent() {
+        if (!hasListeners(getHandlers())) return;
         Bukkit.getPluginManager().callEvent(this);
     }
 
+    /**
+     * Check whether any listeners are registered for an event
+     * <p>Bukkit caches the listeners of a HandlerList and only rebuilds them when listeners
+     * are registered or unregistered, so this is cheap enough to check before creating an event.</p>
+     *
+     * @param handlerList HandlerList of the event
+     * @return True if at least one listener is registered
+     */
+    public static boolean hasListeners(@NotNull HandlerList handlerList) {
+        return handlerList.getRegisteredListeners().length > 0;
+    }
+
 }
@@ -0,0 +1,30 @@
+package com.shanebeestudios.api.event;
+
+import com.shanebeestudios.api.event.machine.FurnaceCookingEvent;
+import com.shanebeestudios.api.event.machine.FurnaceFuelBurningEvent;
+
+/**
+ * How events which happen every tick are called
+ * <p>This covers the {@link FurnaceCookingEvent} and {@link FurnaceFuelBurningEvent}</p>
+ */
+public enum TickEventMode {
+
+    /**
+     * An event is called for each machine every tick
+     * <p>Events are only created when a listener is registered for them</p>
+     */
+    PER_MACHINE,
+
+    /**
+     * One {@link com.shanebeestudios.api.event.machine.FurnaceTickBatchEvent} is called per tick
+     * for all machines, instead of an event per machine
+     * <p>The ignite and cook finish events are still called per machine, as they can be cancelled.</p>
+     */
+    BATCH,
+
+    /**
+     * Per tick events are never called
+     */
+    DISABLED
+
+}
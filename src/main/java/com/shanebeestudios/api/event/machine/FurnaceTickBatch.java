@@ -0,0 +1,80 @@
+package com.shanebeestudios.api.event.machine;
+
+import com.shanebeestudios.api.machine.Furnace;
+import org.jetbrains.annotations.*;
+
+import java.util.*;
+
+/**
+ * Collects what furnaces did during a tick for a {@link FurnaceTickBatchEvent}
+ * <p>Each tick thread collects into its own batch, which is set as the current batch while ticking.</p>
+ * <p><b>Internal use only!</b></p>
+ */
+public final class FurnaceTickBatch {
+
+    private static final ThreadLocal<FurnaceTickBatch> CURRENT = new ThreadLocal<>();
+
+    final List<Furnace> burned = new ArrayList<>();
+    final List<Furnace> cooked = new ArrayList<>();
+    final List<Furnace> ignited = new ArrayList<>();
+    final List<Furnace> finished = new ArrayList<>();
+
+    /**
+     * Get the batch collecting on the current thread
+     *
+     * @return Current batch, null if not collecting
+     */
+    public static @Nullable FurnaceTickBatch current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Start collecting into this batch on the current thread
+     */
+    public void begin() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Stop collecting on the current thread
+     */
+    public void end() {
+        CURRENT.remove();
+    }
+
+    public void burned(@NotNull Furnace furnace) {
+        this.burned.add(furnace);
+    }
+
+    public void cooked(@NotNull Furnace furnace) {
+        this.cooked.add(furnace);
+    }
+
+    public void ignited(@NotNull Furnace furnace) {
+        this.ignited.add(furnace);
+    }
+
+    public void finished(@NotNull Furnace furnace) {
+        this.finished.add(furnace);
+    }
+
+    /**
+     * Check whether nothing was collected
+     *
+     * @return True if empty
+     */
+    public boolean isEmpty() {
+        return this.burned.isEmpty() && this.cooked.isEmpty() && this.ignited.isEmpty() && this.finished.isEmpty();
+    }
+
+    /**
+     * Clear everything collected
+     */
+    public void clear() {
+        this.burned.clear();
+        this.cooked.clear();
+        this.ignited.clear();
+        this.finished.clear();
+    }
+
+}
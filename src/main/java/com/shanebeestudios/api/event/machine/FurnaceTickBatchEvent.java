@@ -0,0 +1,91 @@
+package com.shanebeestudios.api.event.machine;
+
+import com.shanebeestudios.api.event.Event;
+import com.shanebeestudios.api.event.TickEventMode;
+import com.shanebeestudios.api.machine.Furnace;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Called once per tick with all {@link Furnace Furnaces} which burned, cooked, ignited or finished cooking
+ * <p>Only called when using {@link TickEventMode#BATCH}. Furnaces which are parked or stepped
+ * by the tick engine are not included for those ticks.</p>
+ */
+@SuppressWarnings("unused")
+public class FurnaceTickBatchEvent extends Event {
+
+    private static final HandlerList handlerList = new HandlerList();
+
+    private final List<Furnace> burned;
+    private final List<Furnace> cooked;
+    private final List<Furnace> ignited;
+    private final List<Furnace> finished;
+
+    public FurnaceTickBatchEvent(@NotNull Collection<FurnaceTickBatch> batches) {
+        super(true);
+        List<Furnace> burned = new ArrayList<>();
+        List<Furnace> cooked = new ArrayList<>();
+        List<Furnace> ignited = new ArrayList<>();
+        List<Furnace> finished = new ArrayList<>();
+        for (FurnaceTickBatch batch : batches) {
+            burned.addAll(batch.burned);
+            cooked.addAll(batch.cooked);
+            ignited.addAll(batch.ignited);
+            finished.addAll(batch.finished);
+        }
+        this.burned = Collections.unmodifiableList(burned);
+        this.cooked = Collections.unmodifiableList(cooked);
+        this.ignited = Collections.unmodifiableList(ignited);
+        this.finished = Collections.unmodifiableList(finished);
+    }
+
+    /**
+     * Get the furnaces which burned fuel this tick
+     * <p>Replaces the {@link FurnaceFuelBurningEvent}</p>
+     *
+     * @return Read-only list of furnaces
+     */
+    public List<Furnace> getBurned() {
+        return burned;
+    }
+
+    /**
+     * Get the furnaces which were cooking this tick
+     * <p>Replaces the {@link FurnaceCookingEvent}</p>
+     *
+     * @return Read-only list of furnaces
+     */
+    public List<Furnace> getCooked() {
+        return cooked;
+    }
+
+    /**
+     * Get the furnaces which ignited new fuel this tick
+     *
+     * @return Read-only list of furnaces
+     */
+    public List<Furnace> getIgnited() {
+        return ignited;
+    }
+
+    /**
+     * Get the furnaces which finished cooking an item this tick
+     *
+     * @return Read-only list of furnaces
+     */
+    public List<Furnace> getFinished() {
+        return finished;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return handlerList;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlerList;
+    }
+
+}
@@ -19,8 +19,20 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     private final ItemStack[] potionBottles;
     private final BrewingProperties properties;
 
-    // TODO: Implement this
-    private boolean shouldPlaySound;
+    // Whether a brew finished since the last sync, to play the sound to viewers
+    private volatile boolean shouldPlaySound;
+    // Items last put in the inventory, used to find changes made by players
+    private ItemStack[] pushed;
+    // Recipe resolved for the current ingredient and bottles, and fuel resolved for the current fuel type,
+    // valid until those change or the recipe manager's version changes
+    private int recipeVersion = -1;
+    private ItemStack resolvedIngredient;
+    private Material resolvedIngredientType;
+    private final ItemStack[] resolvedBottles = new ItemStack[3];
+    private BrewingRecipe recipe;
+    private int fuelVersion = -1;
+    private Material resolvedFuel;
+    private BrewingFuel brewingFuel;
 
     private ItemStack fuel = null;
     private ItemStack ingredient = null;
@@ -35,7 +47,6 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
         this.recManager = VirtualFurnaceAPI.getInstance().getRecipeManager();
         this.inv = Bukkit.createInventory(this, InventoryType.BREWING, name);
         this.potionBottles = new ItemStack[3];
-        this.updateInventory();
     }
 
     private BrewingStand(UUID uuid, String name, BrewingProperties properties, int brewTime, int maxBrews, int fuelTime, ItemStack fuel, ItemStack ingredient, ItemStack[] bottles) {
@@ -49,7 +60,6 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
         this.ingredient = ingredient;
         this.potionBottles = bottles;
         this.inv = Bukkit.createInventory(this, InventoryType.BREWING, name);
-        this.updateInventory();
         this.updateBrewSpeed();
     }
 
@@ -66,7 +76,11 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
         bottles[0] = (ItemStack) args.get("bottle-1");
         bottles[1] = (ItemStack) args.get("bottle-2");
         bottles[2] = (ItemStack) args.get("bottle-3");
-        return new BrewingStand(uuid, name, prop, brewTime, maxBrews, fuelTime, fuel, ing, bottles);
+        BrewingStand stand = new BrewingStand(uuid, name, prop, brewTime, maxBrews, fuelTime, fuel, ing, bottles);
+        if (args.containsKey("lastTicked")) {
+            stand.setLastTicked(((Number) args.get("lastTicked")).longValue());
+        }
+        return stand;
     }
 
     public RecipeManager getRecManager() {
@@ -86,7 +100,11 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     }
 
     public void setFuel(ItemStack fuel) {
-        this.fuel = fuel;
+        synchronized (this) {
+            this.fuel = fuel;
+        }
+        queueSync();
+        wake();
     }
 
     public ItemStack getIngredient() {
@@ -94,7 +112,11 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     }
 
     public void setIngredient(ItemStack ingredient) {
-        this.ingredient = ingredient;
+        synchronized (this) {
+            this.ingredient = ingredient;
+        }
+        queueSync();
+        wake();
     }
 
     public int getFuelTime() {
@@ -102,7 +124,11 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     }
 
     public void setFuelTime(int fuelTime) {
-        this.fuelTime = fuelTime;
+        synchronized (this) {
+            this.fuelTime = fuelTime;
+        }
+        markDirty();
+        wake();
     }
 
     public int getMax() {
@@ -110,7 +136,10 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     }
 
     public void setMax(int max) {
-        this.max = max;
+        synchronized (this) {
+            this.max = max;
+        }
+        markDirty();
     }
 
     public int getBrewTime() {
@@ -118,7 +147,11 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     }
 
     public void setBrewTime(int brewTime) {
-        this.brewTime = brewTime;
+        synchronized (this) {
+            this.brewTime = brewTime;
+        }
+        markDirty();
+        wake();
     }
 
     public int getSpeed() {
@@ -126,21 +159,58 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     }
 
     public void setSpeed(int speed) {
-        this.speed = speed;
+        synchronized (this) {
+            this.speed = speed;
+        }
+        markDirty();
     }
 
     @Override
     public void openInventory(Player player) {
-        updateInventory();
+        sync();
         player.openInventory(inv);
+        wake();
     }
 
-    private void updateInventory() {
-        this.inv.setItem(0, potionBottles[0]);
-        this.inv.setItem(1, potionBottles[1]);
-        this.inv.setItem(2, potionBottles[2]);
-        this.inv.setItem(3, ingredient);
-        this.inv.setItem(4, fuel);
+    @Override
+    boolean syncInventory() {
+        ItemStack[] items = new ItemStack[]{this.potionBottles[0], this.potionBottles[1], this.potionBottles[2], this.ingredient, this.fuel};
+        boolean changed = false;
+        if (this.pushed != null) {
+            // Take over changes players made since the last sync
+            for (int i = 0; i < items.length; i++) {
+                ItemStack merged = merge(items[i], this.pushed[i], this.inv.getItem(i));
+                if (merged != items[i]) {
+                    items[i] = merged;
+                    changed = true;
+                }
+            }
+            System.arraycopy(items, 0, this.potionBottles, 0, 3);
+            this.ingredient = items[3];
+            this.fuel = items[4];
+        }
+        for (int i = 0; i < items.length; i++) {
+            if (!same(items[i], this.inv.getItem(i))) {
+                this.inv.setItem(i, items[i]);
+            }
+            items[i] = copy(items[i]);
+        }
+        this.pushed = items;
+
+        boolean brewed = this.shouldPlaySound;
+        this.shouldPlaySound = false;
+        for (HumanEntity viewer : this.inv.getViewers()) {
+            try {
+                InventoryView view = viewer.getOpenInventory();
+                view.setProperty(InventoryView.Property.BREW_TIME, brewTime);
+                view.setProperty(InventoryView.Property.FUEL_TIME, (int) Math.round(((double) fuelTime) / ((double) (max / 20))));
+                if (brewed && viewer instanceof Player player) {
+                    player.playSound(player.getLocation(), Sound.BLOCK_BREWING_STAND_BREW, 1, 1);
+                }
+            } catch (final Exception ignored) {
+            }
+        }
+        return changed;
     }
 
     @Override
@@ -154,12 +224,7 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     }
 
     void processBrew() {
-        BrewingRecipe recipe = null;
-        for (int i = 2; i >= 0; i--) {
-            BrewingRecipe recipe1 = recManager.getBrewingRecipeByIngredient(ingredient, potionBottles[i]);
-            if (recipe1 != null)
-                recipe = recipe1;
-        }
+        BrewingRecipe recipe = getRecipe();
         if (recipe == null) return;
         for (int i = 0; i <= 2; i++) {
             if (match(potionBottles[i], recipe.getInputBottle())) {
@@ -172,13 +237,9 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
         } else
             ingredient = null;
         brewTime = 0;
-        updateInventory();
-
-        for (HumanEntity viewer : inv.getViewers()) {
-            Player player = (Player) viewer;
-            player.playSound(player.getLocation(), Sound.BLOCK_BREWING_STAND_BREW, 1, 1);
-        }
-        // TODO: This is where the sound would play on completion
+        // The brewing sound is played for viewers when the inventory is synced
+        this.shouldPlaySound = true;
+        queueSync();
     }
 
     boolean match(ItemStack one, ItemStack two) {
@@ -187,7 +248,7 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
     }
 
     void processFuel() {
-        BrewingFuel fuel = recManager.getBrewingFuelByMaterial(this.fuel.getType());
+        BrewingFuel fuel = getBrewingFuel();
         fuelTime = (int) (fuel.getDuration() * properties.getFuelTimeMultiplier());
         max = fuelTime;
         if (this.fuel.getAmount() > 1) {
@@ -195,7 +256,7 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
         } else
             this.fuel = null;
 
-        updateInventory();
+        queueSync();
     }
 
     boolean canBrew() {
@@ -204,17 +265,38 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
 
     private BrewingRecipe getRecipe() {
         if (ingredient == null) return null;
+        int version = recManager.getVersion();
+        if (version == recipeVersion && ingredient == resolvedIngredient && ingredient.getType() == resolvedIngredientType
+                && potionBottles[0] == resolvedBottles[0] && potionBottles[1] == resolvedBottles[1] && potionBottles[2] == resolvedBottles[2]) {
+            return recipe;
+        }
 
-        BrewingRecipe recipe;
+        BrewingRecipe found = null;
         for (int i = 0; i <= 2; i++) {
             if (potionBottles[i] != null) {
-                recipe = recManager.getBrewingRecipeByIngredient(ingredient, potionBottles[i]);
-                if (recipe != null)
-                    return recipe;
+                found = recManager.getBrewingRecipeByIngredient(ingredient, potionBottles[i]);
+                if (found != null)
+                    break;
             }
         }
-
-        return null;
+        recipe = found;
+        recipeVersion = version;
+        resolvedIngredient = ingredient;
+        resolvedIngredientType = ingredient.getType();
+        System.arraycopy(potionBottles, 0, resolvedBottles, 0, 3);
+        return found;
+    }
+
+    private BrewingFuel getBrewingFuel() {
+        if (this.fuel == null) return null;
+        int version = recManager.getVersion();
+        Material type = this.fuel.getType();
+        if (version != fuelVersion || type != resolvedFuel) {
+            brewingFuel = recManager.getBrewingFuelByMaterial(type);
+            fuelVersion = version;
+            resolvedFuel = type;
+        }
+        return brewingFuel;
     }
 
     private void updateBrewSpeed() {
@@ -224,12 +306,47 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
         }
     }
 
+    @Override
+    public int getTicksUntilChange() {
+        if (fuelTime <= 0 || brewTime <= 0 || ingredient == null || speed <= 0) return 1;
+        if (isViewed()) return 1;
+        return Math.max(1, (brewTime + speed - 1) / speed);
+    }
+
+    @Override
+    public void fastForward(long ticks) {
+        long remaining = ticks;
+        while (remaining > 0) {
+            if (fuelTime > 0 && brewTime > 0 && ingredient != null && speed > 0) {
+                int step = (int) Math.min(remaining, (brewTime + speed - 1) / speed);
+                brewTime -= step * speed;
+                remaining -= step;
+                if (brewTime <= 0) {
+                    processBrew();
+                }
+            } else {
+                if (isIdle()) break;
+                tick();
+                remaining--;
+            }
+        }
+    }
+
+    @Override
+    public boolean isIdle() {
+        if (isViewed()) return false;
+        if (brewTime > 0) return false;
+        if (fuelTime > 0) return !canBrew();
+        return !canBurn();
+    }
+
     @Override
     public void tick() {
         try {
             if (fuelTime > 0) {
                 if (brewTime > 0) {
-                    if (ingredient != null) {
+                    // The recipe may have been removed by a reload while brewing
+                    if (ingredient != null && canBrew()) {
                         brewTime -= speed;
                         if (brewTime <= 0) {
                             processBrew();
@@ -242,46 +359,14 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
             } else if (canBurn()) {
                 processFuel();
             }
-            updateInventoryView();
+            queueSync();
         } catch (AssertionError error) {
             ingredient = null;
         }
     }
 
-    private void updateInventoryView() {
-        ItemStack bottle1 = this.inv.getItem(0), bottle2 = this.inv.getItem(1), bottle3 = this.inv.getItem(2);
-        ItemStack ingred = this.inv.getItem(3);
-        ItemStack f = this.inv.getItem(4);
-
-        if (!match(this.potionBottles[0], bottle1)) {
-            this.potionBottles[0] = bottle1;
-        }
-        if (!match(this.potionBottles[1], bottle2)) {
-            this.potionBottles[1] = bottle2;
-        }
-        if (!match(this.potionBottles[2], bottle3)) {
-            this.potionBottles[2] = bottle3;
-        }
-        if (!match(this.ingredient, ingred)) {
-            this.ingredient = ingred;
-        }
-        if (!match(this.fuel, f)) {
-            this.fuel = f;
-        }
-
-        inv.getViewers().forEach((viewer) -> {
-            try {
-                InventoryView view = viewer.getOpenInventory();
-                view.setProperty(InventoryView.Property.BREW_TIME, brewTime);
-                view.setProperty(InventoryView.Property.FUEL_TIME, (int) Math.round(((double) fuelTime) / ((double) (max / 20))));
-            } catch (final Exception ignored) {
-            }
-        });
-    }
-
     private boolean canBurn() {
-        if (this.fuel == null) return false;
-        return this.recManager.getBrewingFuelByMaterial(this.fuel.getType()) != null;
+        return getBrewingFuel() != null;
     }
 
     @Override
@@ -298,6 +383,7 @@ public class BrewingStand extends Machine implements PropertyHolder<BrewingPrope
         result.put("bottle-1", this.potionBottles[0]);
         result.put("bottle-2", this.potionBottles[1]);
         result.put("bottle-3", this.potionBottles[2]);
+        result.put("lastTicked", System.currentTimeMillis());
         return result;
     }
 }
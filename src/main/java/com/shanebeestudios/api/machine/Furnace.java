@@ -1,6 +1,7 @@
 package com.shanebeestudios.api.machine;
 
 import com.shanebeestudios.api.*;
+import com.shanebeestudios.api.event.*;
 import com.shanebeestudios.api.event.machine.*;
 import com.shanebeestudios.api.property.*;
 import com.shanebeestudios.api.recipe.FurnaceRecipe;
@@ -9,6 +10,7 @@ import com.shanebeestudios.api.util.Util;
 import org.bukkit.*;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.entity.*;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.*;
 import org.jetbrains.annotations.NotNull;
@@ -32,6 +34,23 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
     private int fuelTime;
     private int fuelTimeTotal;
     private float experience;
+    // While bound, the timers above live in the store instead
+    private FurnaceStateStore store;
+    private int slot = -1;
+    // Items last put in the inventory, used to find changes made by players
+    private ItemStack[] pushed;
+    // Recipe and fuel resolved for the current input item and fuel type,
+    // valid until either changes or the recipe manager's version changes
+    private int resolvedVersion = -1;
+    private ItemStack resolvedInputItem;
+    private Material resolvedInput;
+    private Material resolvedFuel;
+    private FurnaceRecipe recipe;
+    private FurnaceFuel furnaceFuel;
+    private int scaledCookTime;
+    private int scaledBurnTime;
+    // Whether this object was moved into an off-heap store, see FurnaceManager#offload
+    volatile boolean offloaded;
 
     /**
      * Create a new furnace object
@@ -58,44 +77,42 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
         super(UUID.randomUUID(), name);
         this.furnaceProperties = furnaceProperties;
         this.recipeManager = VirtualFurnaceAPI.getInstance().getRecipeManager();
-        this.cookTime = 0;
-        this.cookTimeTotal = 0;
-        this.fuelTime = 0;
-        this.fuelTimeTotal = 0;
+        setCookTime(0);
+        setCookTimeTotal(0);
+        setFuelTime(0);
+        setFuelTimeTotal(0);
         this.fuel = null;
         this.input = null;
         this.output = null;
         this.inventory = Bukkit.createInventory(this, InventoryType.FURNACE, Util.getColString(name));
-        this.experience = 0.0f;
-        this.updateInventory();
+        setExperience(0.0f);
     }
 
-    // Used for deserializer
-    private Furnace(String name, UUID uuid, int cookTime, int fuelTime, float xp, ItemStack fuel, ItemStack input, ItemStack output, FurnaceProperties furnaceProperties) {
+    // Used for deserializer and the off-heap store
+    Furnace(String name, UUID uuid, int cookTime, int fuelTime, float xp, ItemStack fuel, ItemStack input, ItemStack output, FurnaceProperties furnaceProperties) {
         super(uuid, name);
         this.recipeManager = VirtualFurnaceAPI.getInstance().getRecipeManager();
-        this.cookTime = cookTime;
-        this.fuelTime = fuelTime;
+        setCookTime(cookTime);
+        setFuelTime(fuelTime);
         this.fuel = fuel;
         this.input = input;
         this.output = output;
         this.furnaceProperties = furnaceProperties;
 
-        FurnaceRecipe furnaceRecipe = recipeManager.getByIngredient(input != null ? input.getType() : null);
+        FurnaceRecipe furnaceRecipe = recipe();
         if (furnaceRecipe != null) {
-            this.cookTimeTotal = furnaceRecipe.getCookTime();
+            setCookTimeTotal(furnaceRecipe.getCookTime());
         } else {
-            this.cookTimeTotal = 0;
+            setCookTimeTotal(0);
         }
-        FurnaceFuel fuelF = recipeManager.getFuelByMaterial(fuel != null ? fuel.getType() : null);
+        FurnaceFuel fuelF = furnaceFuel();
         if (fuelF != null) {
-            this.fuelTimeTotal = fuelF.getBurnTime();
+            setFuelTimeTotal(fuelF.getBurnTime());
         } else {
-            this.fuelTimeTotal = 0;
+            setFuelTimeTotal(0);
         }
-        this.experience = xp;
+        setExperience(xp);
         this.inventory = Bukkit.createInventory(this, InventoryType.FURNACE, Util.getColString(name));
-        this.updateInventory();
     }
 
     /**
@@ -116,7 +133,11 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
         ItemStack input = ((ItemStack) args.get("input"));
         ItemStack output = ((ItemStack) args.get("output"));
 
-        return new Furnace(name, uuid, cookTime, fuelTime, xp, fuel, input, output, furnaceProperties);
+        Furnace furnace = new Furnace(name, uuid, cookTime, fuelTime, xp, fuel, input, output, furnaceProperties);
+        if (args.containsKey("lastTicked")) {
+            furnace.setLastTicked(((Number) args.get("lastTicked")).longValue());
+        }
+        return furnace;
     }
 
     /**
@@ -131,6 +152,7 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
 
     /**
      * Get this furnace's inventory
+     * <p>The inventory is synced with this furnace on the main thread, only while it is being viewed</p>
      *
      * @return Inventory
      */
@@ -153,7 +175,11 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
      * @param fuel Fuel to set
      */
     public void setFuel(ItemStack fuel) {
-        this.fuel = fuel;
+        synchronized (this) {
+            this.fuel = fuel;
+        }
+        queueSync();
+        wake();
     }
 
     /**
@@ -171,7 +197,11 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
      * @param input ItemStack to set
      */
     public void setInput(ItemStack input) {
-        this.input = input;
+        synchronized (this) {
+            this.input = input;
+        }
+        queueSync();
+        wake();
     }
 
     /**
@@ -190,8 +220,12 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
      * @return Current experience stored in this furnace
      */
     public float extractExperience() {
-        float exp = this.experience;
-        this.experience = 0.0f;
+        float exp;
+        synchronized (this) {
+            exp = experience();
+            setExperience(0.0f);
+        }
+        markDirty();
         return exp;
     }
 
@@ -202,39 +236,59 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
      */
     @Override
     public void openInventory(Player player) {
-        updateInventory();
+        moveBack();
+        sync();
         player.openInventory(this.inventory);
+        wake();
     }
 
-    private void updateInventory() {
-        this.inventory.setItem(0, this.input);
-        this.inventory.setItem(1, this.fuel);
-        this.inventory.setItem(2, this.output);
+    @Override
+    public void markDirty() {
+        super.markDirty();
+        moveBack();
     }
 
-    private void updateInventoryView() {
-        ItemStack input = this.inventory.getItem(0);
-        if (this.input != input) {
-            this.input = input;
+    // Used through a reference kept while off-heap, move it back so it is ticked and saved again
+    private void moveBack() {
+        if (!this.offloaded) return;
+        VirtualFurnaceAPI api = VirtualFurnaceAPI.getInstance();
+        if (api != null) {
+            api.getFurnaceManager().getByID(getUniqueID());
         }
-        ItemStack fuel = this.inventory.getItem(1);
-        if (this.fuel != fuel) {
+    }
+
+    @Override
+    boolean syncInventory() {
+        boolean changed = false;
+        if (this.pushed != null) {
+            // Take over changes players made since the last sync
+            ItemStack input = merge(this.input, this.pushed[0], this.inventory.getItem(0));
+            ItemStack fuel = merge(this.fuel, this.pushed[1], this.inventory.getItem(1));
+            ItemStack output = merge(this.output, this.pushed[2], this.inventory.getItem(2));
+            changed = input != this.input || fuel != this.fuel || output != this.output;
+            this.input = input;
             this.fuel = fuel;
-        }
-        ItemStack output = this.inventory.getItem(2);
-        if (this.output != output) {
             this.output = output;
         }
+        ItemStack[] items = new ItemStack[]{this.input, this.fuel, this.output};
+        for (int i = 0; i < items.length; i++) {
+            if (!same(items[i], this.inventory.getItem(i))) {
+                this.inventory.setItem(i, items[i]);
+            }
+            items[i] = copy(items[i]);
+        }
+        this.pushed = items;
         for (HumanEntity entity : this.inventory.getViewers()) {
             try {
                 InventoryView view = entity.getOpenInventory();
-                view.setProperty(InventoryView.Property.COOK_TIME, this.cookTime);
-                view.setProperty(InventoryView.Property.TICKS_FOR_CURRENT_SMELTING, this.cookTimeTotal);
-                view.setProperty(InventoryView.Property.BURN_TIME, this.fuelTime);
-                view.setProperty(InventoryView.Property.TICKS_FOR_CURRENT_FUEL, this.fuelTimeTotal);
+                view.setProperty(InventoryView.Property.COOK_TIME, cookTime());
+                view.setProperty(InventoryView.Property.TICKS_FOR_CURRENT_SMELTING, cookTimeTotal());
+                view.setProperty(InventoryView.Property.BURN_TIME, fuelTime());
+                view.setProperty(InventoryView.Property.TICKS_FOR_CURRENT_FUEL, fuelTimeTotal());
             } catch (Exception ignored) {
             }
         }
+        return changed;
     }
 
     /**
@@ -247,20 +301,20 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
         // The fuel is the fire in the middle, not the ItemStack
         // Cook time is the arrow in the Furnace UI
 
-        if (this.fuelTime > 0) { // If fuel still there
+        if (fuelTime() > 0) { // If fuel still there
             burningTheFuel(); // decrease fuel
 
             if (canCook()) { // If can cook
                 cooking(); // increase cook time
 
-                if (this.cookTime >= this.cookTimeTotal) { // If cook time more than or equal to total cook time
-                    this.cookTime = 0; // set cook time to 0
+                if (cookTime() >= cookTimeTotal()) { // If cook time more than or equal to total cook time
+                    setCookTime(0); // set cook time to 0
 
                     finishCook(); // finish cook
                 }
 
             } else // cannot cook
-                this.cookTime = 0; // set cook time to 0
+                setCookTime(0); // set cook time to 0
 
         } else // fuel empty
             if (canBurn() && canCook()) { // check can burn fuel and can cook
@@ -268,27 +322,228 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
                 igniteFuel(); // start burn fuel and cooking
 
             } else // the condition here is fuel empty and can't burn fuel (or cook)
-                if (this.cookTime > 0) { // If Furnace is cooking
+                if (cookTime() > 0) { // If Furnace is cooking
 
                     if (canCook()) // If ItemStack in cook slot is available (obviously can cook it)
-                        this.cookTime -= 5; // decrease cook time because there is no fuel
+                        setCookTime(cookTime() - 5); // decrease cook time because there is no fuel
                     else // or cannot cook it
-                        this.cookTime = 0; // set the cook time to 0
+                        setCookTime(0); // set the cook time to 0
 
                 }
 
-        updateInventoryView();
+        queueSync();
+    }
+
+    /**
+     * Get the amount of ticks until the state of this furnace changes
+     * <p>This is the time until the current cook finishes or the fuel runs out.
+     * While a player is viewing this furnace it has to be ticked every tick.</p>
+     *
+     * @return Ticks until the next state change
+     */
+    @Override
+    public int getTicksUntilChange() {
+        if (fuelTime() <= 0 || isViewed()) return 1;
+        if (canCook()) {
+            return Math.max(1, Math.min(fuelTime(), cookTimeTotal() - cookTime()));
+        }
+        return fuelTime();
+    }
+
+    /**
+     * Fast forward this furnace by a number of ticks
+     * <p>Instead of adding and removing 1 per tick, progress is applied in one step
+     * per state change (cook finished, fuel used up, output full), following the same rules as {@link #tick()}.
+     * Per tick events are not called for skipped ticks.</p>
+     *
+     * @param ticks Amount of ticks to fast forward
+     */
+    @Override
+    public void fastForward(long ticks) {
+        long remaining = ticks;
+        while (remaining > 0) {
+            if (fuelTime() > 0) {
+                if (canCook()) {
+                    int step = (int) Math.min(remaining, Math.min(fuelTime(), Math.max(1, cookTimeTotal() - cookTime())));
+                    setFuelTime(fuelTime() - step);
+                    setCookTime(cookTime() + step);
+                    remaining -= step;
+                    if (cookTime() >= cookTimeTotal()) {
+                        setCookTime(0);
+                        finishCook();
+                    }
+                } else {
+                    int step = (int) Math.min(remaining, fuelTime());
+                    setFuelTime(fuelTime() - step);
+                    setCookTime(0);
+                    remaining -= step;
+                }
+            } else if (canBurn() && canCook()) {
+                igniteFuel();
+                remaining--;
+                // Ignition was cancelled, nothing more will happen
+                if (fuelTime() <= 0) break;
+            } else if (cookTime() > 0 && canCook()) {
+                // Cook time drops by 5 per tick without fuel
+                int step = (int) Math.min(remaining, (cookTime() + 4) / 5);
+                setCookTime(cookTime() - step * 5);
+                remaining -= step;
+            } else {
+                if (cookTime() > 0) setCookTime(0);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Catch up on a number of ticks that passed while this furnace was not loaded
+     * <p>The amount of items cooked and fuel burnt is calculated in one go, following the same
+     * fuel and recipe rules as {@link #tick()}. The output and experience are added in bulk,
+     * no events are called.</p>
+     *
+     * @param ticks Amount of ticks to catch up on
+     */
+    @Override
+    public void catchUp(long ticks) {
+        if (ticks <= 0) return;
+        FurnaceRecipe recipe = recipe();
+        int cookable = 0;
+        if (recipe != null) {
+            setCookTimeTotal(Math.max(1, this.scaledCookTime));
+            ItemStack result = recipe.getItemResult();
+            int space;
+            if (this.output == null) {
+                space = result.getMaxStackSize();
+            } else if (recipe.isResult(this.output)) {
+                space = this.output.getMaxStackSize() - this.output.getAmount();
+            } else {
+                space = 0;
+            }
+            cookable = Math.max(0, Math.min(this.input.getAmount(), space));
+        }
+        if (cookable == 0) {
+            // Nothing can cook, the fuel just burns out
+            if (fuelTime() > 0 || cookTime() > 0) setCookTime(0);
+            setFuelTime((int) Math.max(0, fuelTime() - ticks));
+            return;
+        }
+
+        long burn = furnaceFuel() != null ? this.scaledBurnTime : 0;
+        long fuelItems = burn > 0 ? this.fuel.getAmount() : 0;
+        long total = cookTimeTotal();
+        long cook = Math.min(cookTime(), total - 1);
+        long current = fuelTime();
+        // Cooking ticks needed to cook everything
+        long need = cookable * total - cook;
+
+        boolean done = false;
+        long cookTicks;
+        long fuelUsed = 0;
+        long fuelLeft;
+        // Ticks spent without fuel, cook time cools down during these
+        long idle = 0;
+        if (need <= current && need <= ticks) {
+            done = true;
+            cookTicks = need;
+            fuelLeft = Math.max(0, current - ticks);
+        } else if (ticks <= current) {
+            cookTicks = ticks;
+            fuelLeft = current - ticks;
+        } else {
+            // Burn out the current fuel, then each fuel item takes 1 tick to ignite and burns for 'burn' ticks
+            cookTicks = current;
+            long needLeft = need - current;
+            long ticksLeft = ticks - current;
+            long cycle = burn + 1;
+            long itemsNeeded = burn > 0 ? (needLeft + burn - 1) / burn : Long.MAX_VALUE;
+            long finishTime = itemsNeeded <= fuelItems ? (itemsNeeded - 1) * cycle + 1 + (needLeft - (itemsNeeded - 1) * burn) : Long.MAX_VALUE;
+            if (finishTime <= ticksLeft) {
+                done = true;
+                cookTicks = need;
+                fuelUsed = itemsNeeded;
+                fuelLeft = Math.max(0, itemsNeeded * burn - needLeft - (ticksLeft - finishTime));
+            } else {
+                long cycles = burn > 0 ? ticksLeft / cycle : 0;
+                long rest = burn > 0 ? ticksLeft % cycle : 0;
+                if (cycles >= fuelItems) {
+                    cookTicks += fuelItems * burn;
+                    fuelUsed = fuelItems;
+                    fuelLeft = 0;
+                    idle = ticksLeft - fuelItems * cycle;
+                } else {
+                    cookTicks += cycles * burn + Math.max(0, rest - 1);
+                    fuelUsed = cycles + (rest > 0 ? 1 : 0);
+                    fuelLeft = rest > 0 ? burn - (rest - 1) : 0;
+                }
+            }
+        }
+
+        int cooked;
+        if (done) {
+            cooked = cookable;
+            setCookTime(0);
+        } else {
+            long progress = cook + cookTicks;
+            cooked = (int) Math.max(0, progress / total);
+            long left = progress - cooked * total;
+            if (idle > 0 && left > 0) {
+                left -= 5 * Math.min(idle, (left + 4) / 5);
+            }
+            setCookTime((int) left);
+        }
+
+        setFuelTime((int) fuelLeft);
+        if (fuelUsed > 0) {
+            setFuelTimeTotal((int) burn);
+            int fuelAmount = this.fuel.getAmount();
+            if (fuelAmount > fuelUsed) {
+                this.fuel.setAmount((int) (fuelAmount - fuelUsed));
+            } else if (this.fuel.getType() == Material.LAVA_BUCKET) {
+                this.fuel.setType(Material.BUCKET);
+            } else {
+                this.fuel = null;
+            }
+        }
+        if (cooked > 0) {
+            int inputAmount = this.input.getAmount();
+            if (inputAmount > cooked) {
+                this.input.setAmount(inputAmount - cooked);
+            } else {
+                this.input = null;
+            }
+            if (this.output == null) {
+                this.output = recipe.getItemResult().clone();
+                this.output.setAmount(cooked);
+            } else {
+                this.output.setAmount(this.output.getAmount() + cooked);
+            }
+            setExperience(experience() + cooked * recipe.getExperience());
+        }
+        queueSync();
+    }
+
+    /**
+     * Check whether this furnace is idle
+     * <p>A furnace is idle when nobody is viewing it, it is not burning or cooking,
+     * and its fuel can not be ignited for the current input.</p>
+     *
+     * @return True if idle
+     */
+    @Override
+    public boolean isIdle() {
+        if (isViewed()) return false;
+        if (fuelTime() > 0 || cookTime() > 0) return false;
+        return !(canBurn() && canCook());
     }
 
     // Checks to see if the fuel can be burt.
     private boolean canBurn() {
-        if (this.fuel == null) return false;
-        return this.recipeManager.getFuelByMaterial(this.fuel.getType()) != null;
+        return furnaceFuel() != null;
     }
 
     // Ignite the fuel of the furnace.
     private void igniteFuel() {
-        FurnaceFuel fuel = this.recipeManager.getFuelByMaterial(this.fuel.getType());
+        FurnaceFuel fuel = furnaceFuel();
         if (fuel == null) return;
 
         FurnaceFuelIgniteEvent event = new FurnaceFuelIgniteEvent(this, this.fuel, fuel, fuel.getBurnTime());
@@ -308,46 +563,51 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
             }
         }
         int burn = (int) (event.getBurnTime() / furnaceProperties.getFuelMultiplier());
-        this.fuelTime = burn;
-        this.fuelTimeTotal = burn;
-        updateInventory();
+        setFuelTime(burn);
+        setFuelTimeTotal(burn);
+        queueSync();
+        FurnaceTickBatch batch = FurnaceTickBatch.current();
+        if (batch != null) batch.ignited(this);
     }
 
     // Burning the fuel of the furnace.
     private void burningTheFuel() {
-        fuelTime--;
-
-        FurnaceFuelBurningEvent event = new FurnaceFuelBurningEvent(this, fuelTime);
-        event.callEvent();
+        setFuelTime(fuelTime() - 1);
+
+        FurnaceTickBatch batch = FurnaceTickBatch.current();
+        if (batch != null) {
+            batch.burned(this);
+        } else if (callTickEvent(FurnaceFuelBurningEvent.getHandlerList())) {
+            FurnaceFuelBurningEvent event = new FurnaceFuelBurningEvent(this, fuelTime());
+            event.callEvent();
+        }
     }
 
     // Checks if the input is a valid ingredient of a FurnaceRecipe.
-    private boolean canCook() {
-        if (this.input == null) return false;
-        FurnaceRecipe result = this.recipeManager.getByIngredient(this.input.getType());
+    boolean canCook() {
+        FurnaceRecipe result = recipe();
         if (result == null) return false;
-        this.cookTimeTotal = (int) (result.getCookTime() / furnaceProperties.getCookMultiplier());
+        setCookTimeTotal(this.scaledCookTime);
         if (this.output == null) return true;
 
-        Material type = this.output.getType();
-        if (type == result.getResult()) {
-            return this.output.getAmount() < type.getMaxStackSize();
+        if (result.isResult(this.output)) {
+            return this.output.getAmount() < this.output.getMaxStackSize();
         }
         return false;
     }
 
     // Finish the cook.
     private void finishCook() {
-        FurnaceRecipe result = this.recipeManager.getByIngredient(this.input.getType());
+        FurnaceRecipe result = recipe();
         if (result == null) return;
         ItemStack out;
         if (this.output == null) {
-            out = new ItemStack(result.getResult());
+            out = result.getItemResult().clone();
         } else {
             out = this.output.clone();
             out.setAmount(out.getAmount() + 1);
         }
-        this.experience += result.getExperience();
+        setExperience(experience() + result.getExperience());
 
         FurnaceCookFinishEvent event = new FurnaceCookFinishEvent(this, this.input, out);
         event.callEvent();
@@ -362,17 +622,166 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
         } else {
             this.input = null;
         }
-        updateInventory();
+        queueSync();
+        FurnaceTickBatch batch = FurnaceTickBatch.current();
+        if (batch != null) batch.finished(this);
     }
 
     private void cooking() {
-        FurnaceRecipe result = this.recipeManager.getByIngredient(this.input.getType());
+        FurnaceRecipe result = recipe();
         if (result == null) return;
 
-        cookTime++;
+        setCookTime(cookTime() + 1);
 
-        FurnaceCookingEvent event = new FurnaceCookingEvent(this, input);
-        event.callEvent();
+        FurnaceTickBatch batch = FurnaceTickBatch.current();
+        if (batch != null) {
+            batch.cooked(this);
+        } else if (callTickEvent(FurnaceCookingEvent.getHandlerList())) {
+            FurnaceCookingEvent event = new FurnaceCookingEvent(this, input);
+            event.callEvent();
+        }
+    }
+
+    // Get the recipe for the current input, resolving it again only when outdated
+    // Bound furnaces also resolve an empty slot, so the IDs in their state store stay current
+    private FurnaceRecipe recipe() {
+        if (this.input == null && this.store == null) return null;
+        resolve();
+        return this.recipe;
+    }
+
+    // Get the fuel for the current fuel item, resolving it again only when outdated
+    private FurnaceFuel furnaceFuel() {
+        if (this.fuel == null && this.store == null) return null;
+        resolve();
+        return this.furnaceFuel;
+    }
+
+    private void resolve() {
+        int version = this.recipeManager.getVersion();
+        Material input = this.input != null ? this.input.getType() : null;
+        Material fuel = this.fuel != null ? this.fuel.getType() : null;
+        boolean inputChanged = this.input != this.resolvedInputItem || input != this.resolvedInput;
+        if (version == this.resolvedVersion && !inputChanged && fuel == this.resolvedFuel) return;
+        if (version != this.resolvedVersion || inputChanged) {
+            // Matching the full item is only done here, when the input item is replaced
+            this.recipe = this.recipeManager.getByIngredient(this.input, furnaceProperties);
+            this.scaledCookTime = this.recipe != null ? (int) (this.recipe.getCookTime() / furnaceProperties.getCookMultiplier()) : 0;
+        }
+        if (version != this.resolvedVersion || fuel != this.resolvedFuel) {
+            this.furnaceFuel = this.recipeManager.getFuelByMaterial(fuel);
+            this.scaledBurnTime = this.furnaceFuel != null ? (int) (this.furnaceFuel.getBurnTime() / furnaceProperties.getFuelMultiplier()) : 0;
+        }
+        this.resolvedVersion = version;
+        this.resolvedInputItem = this.input;
+        this.resolvedInput = input;
+        this.resolvedFuel = fuel;
+        FurnaceStateStore store = this.store;
+        if (store != null) store.setResolved(this.slot, recipeId(), fuelId());
+    }
+
+    // IDs of the resolved recipe and fuel kept in a state store
+    private int recipeId() {
+        return this.recipe != null ? this.resolvedInput.ordinal() : -1;
+    }
+
+    private int fuelId() {
+        return this.furnaceFuel != null ? this.resolvedFuel.ordinal() : -1;
+    }
+
+    // Whether a per tick event should be created at all
+    private static boolean callTickEvent(HandlerList handlerList) {
+        VirtualFurnaceAPI api = VirtualFurnaceAPI.getInstance();
+        if (api != null && api.getSettings().getTickEventMode() != TickEventMode.PER_MACHINE) return false;
+        return Event.hasListeners(handlerList);
+    }
+
+    // Move the timers of this furnace into a slot of a state store
+    // Called by the thread ticking the furnace while holding its lock, like readers on other threads
+    void bind(FurnaceStateStore store, int slot) {
+        FurnaceStateStore.Timers timers = store.timers();
+        timers.cookTime[slot] = this.cookTime;
+        timers.cookTimeTotal[slot] = this.cookTimeTotal;
+        timers.fuelTime[slot] = this.fuelTime;
+        timers.fuelTimeTotal[slot] = this.fuelTimeTotal;
+        timers.experience[slot] = this.experience;
+        resolve();
+        timers.recipeId[slot] = recipeId();
+        timers.fuelId[slot] = fuelId();
+        this.slot = slot;
+        this.store = store;
+    }
+
+    // Move the timers back out of the state store
+    void unbind() {
+        FurnaceStateStore.Timers timers = this.store.timers();
+        int slot = this.slot;
+        this.cookTime = timers.cookTime[slot];
+        this.cookTimeTotal = timers.cookTimeTotal[slot];
+        this.fuelTime = timers.fuelTime[slot];
+        this.fuelTimeTotal = timers.fuelTimeTotal[slot];
+        this.experience = timers.experience[slot];
+        this.store = null;
+        this.slot = -1;
+    }
+
+    int getSlot() {
+        return this.slot;
+    }
+
+    int cookTime() {
+        FurnaceStateStore store = this.store;
+        return store != null ? store.timers().cookTime[this.slot] : this.cookTime;
+    }
+
+    private void setCookTime(int cookTime) {
+        FurnaceStateStore store = this.store;
+        if (store != null) store.timers().cookTime[this.slot] = cookTime;
+        else this.cookTime = cookTime;
+    }
+
+    private int cookTimeTotal() {
+        FurnaceStateStore store = this.store;
+        return store != null ? store.timers().cookTimeTotal[this.slot] : this.cookTimeTotal;
+    }
+
+    private void setCookTimeTotal(int cookTimeTotal) {
+        FurnaceStateStore store = this.store;
+        if (store != null) store.timers().cookTimeTotal[this.slot] = cookTimeTotal;
+        else this.cookTimeTotal = cookTimeTotal;
+    }
+
+    int fuelTime() {
+        FurnaceStateStore store = this.store;
+        return store != null ? store.timers().fuelTime[this.slot] : this.fuelTime;
+    }
+
+    private void setFuelTime(int fuelTime) {
+        FurnaceStateStore store = this.store;
+        if (store != null) store.timers().fuelTime[this.slot] = fuelTime;
+        else this.fuelTime = fuelTime;
+    }
+
+    private int fuelTimeTotal() {
+        FurnaceStateStore store = this.store;
+        return store != null ? store.timers().fuelTimeTotal[this.slot] : this.fuelTimeTotal;
+    }
+
+    private void setFuelTimeTotal(int fuelTimeTotal) {
+        FurnaceStateStore store = this.store;
+        if (store != null) store.timers().fuelTimeTotal[this.slot] = fuelTimeTotal;
+        else this.fuelTimeTotal = fuelTimeTotal;
+    }
+
+    float experience() {
+        FurnaceStateStore store = this.store;
+        return store != null ? store.timers().experience[this.slot] : this.experience;
+    }
+
+    private void setExperience(float experience) {
+        FurnaceStateStore store = this.store;
+        if (store != null) store.setExperience(this.slot, experience);
+        else this.experience = experience;
     }
 
     @Override
@@ -380,8 +789,8 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Furnace furnace = (Furnace) o;
-        return cookTime == furnace.cookTime && cookTimeTotal == furnace.cookTimeTotal &&
-                fuelTime == furnace.fuelTime && fuelTimeTotal == furnace.fuelTimeTotal &&
+        return cookTime() == furnace.cookTime() && cookTimeTotal() == furnace.cookTimeTotal() &&
+                fuelTime() == furnace.fuelTime() && fuelTimeTotal() == furnace.fuelTimeTotal() &&
                 Objects.equals(furnaceProperties, furnace.furnaceProperties) && Objects.equals(recipeManager, furnace.recipeManager) &&
                 Objects.equals(fuel, furnace.fuel) && Objects.equals(input, furnace.input) &&
                 Objects.equals(output, furnace.output) && Objects.equals(inventory, furnace.inventory);
@@ -389,7 +798,7 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
 
     @Override
     public int hashCode() {
-        return Objects.hash(furnaceProperties, recipeManager, fuel, input, output, cookTime, cookTimeTotal, fuelTime, fuelTimeTotal, inventory);
+        return Objects.hash(furnaceProperties, recipeManager, fuel, input, output, cookTime(), cookTimeTotal(), fuelTime(), fuelTimeTotal(), inventory);
     }
 
     @Override
@@ -401,11 +810,11 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
                 ", fuel=" + fuel +
                 ", input=" + input +
                 ", output=" + output +
-                ", cookTime=" + cookTime +
-                ", cookTimeTotal=" + cookTimeTotal +
-                ", fuelTime=" + fuelTime +
-                ", fuelTimeTotal=" + fuelTimeTotal +
-                ", experience=" + experience +
+                ", cookTime=" + cookTime() +
+                ", cookTimeTotal=" + cookTimeTotal() +
+                ", fuelTime=" + fuelTime() +
+                ", fuelTimeTotal=" + fuelTimeTotal() +
+                ", experience=" + experience() +
                 '}';
     }
 
@@ -422,12 +831,13 @@ public class Furnace extends Machine implements PropertyHolder<FurnaceProperties
         result.put("name", this.getName());
         result.put("uuid", this.getUniqueID().toString());
         result.put("properties", this.furnaceProperties);
-        result.put("cookTime", this.cookTime);
-        result.put("fuelTime", this.fuelTime);
-        result.put("xp", this.experience);
+        result.put("cookTime", cookTime());
+        result.put("fuelTime", fuelTime());
+        result.put("xp", experience());
         result.put("fuel", this.fuel);
         result.put("input", this.input);
         result.put("output", this.output);
+        result.put("lastTicked", System.currentTimeMillis());
         return result;
     }
 
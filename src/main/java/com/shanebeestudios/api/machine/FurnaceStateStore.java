@@ -0,0 +1,240 @@
+package com.shanebeestudios.api.machine;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Simulation state of a group of {@link Furnace Furnaces}, kept in parallel primitive arrays
+ * <p>A bound furnace becomes a view over its slot in these arrays, which also hold the IDs of its
+ * current recipe and fuel. Furnaces which are steadily
+ * burning and cooking are stepped by a single pass over the arrays, until their next state change.</p>
+ * <p>Slots are only added, freed and stepped by the thread ticking the owning shard.
+ * The timers are published through a volatile reference to other threads, which is written again
+ * after each step and replaced by a copy when growing, so readers never see arrays being swapped.</p>
+ * <p><b>Internal use only!</b></p>
+ */
+public final class FurnaceStateStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile Timers timers = new Timers(INITIAL_CAPACITY);
+    // Steady ticks left, and whether those ticks also cook
+    private int[] steps = new int[INITIAL_CAPACITY];
+    private int[] cookRate = new int[INITIAL_CAPACITY];
+    private boolean[] stepping = new boolean[INITIAL_CAPACITY];
+    private int[] expired = new int[INITIAL_CAPACITY];
+    private int[] free = new int[INITIAL_CAPACITY];
+    private int freeSize;
+    private int size;
+    private int steppingSize;
+
+    /**
+     * Move the state of a furnace into this store
+     *
+     * @param furnace Furnace to bind
+     * @return Slot of the furnace in this store
+     */
+    public int bind(@NotNull Furnace furnace) {
+        int slot;
+        if (this.freeSize > 0) {
+            slot = this.free[--this.freeSize];
+        } else {
+            if (this.size == this.steps.length) {
+                grow();
+            }
+            slot = this.size++;
+        }
+        furnace.bind(this, slot);
+        return slot;
+    }
+
+    /**
+     * Move the state of a furnace back into the furnace, freeing its slot
+     *
+     * @param furnace Furnace to unbind
+     */
+    public void unbind(@NotNull Furnace furnace) {
+        stop(furnace);
+        int slot = furnace.getSlot();
+        furnace.unbind();
+        this.free[this.freeSize++] = slot;
+    }
+
+    /**
+     * Let a bound furnace be stepped by {@link #tick()} until its next state change
+     *
+     * @param furnace Furnace to step
+     * @return False if the furnace changes state next tick and has to be ticked normally
+     */
+    public boolean step(@NotNull Furnace furnace) {
+        int ticks = furnace.getTicksUntilChange();
+        if (ticks <= 1) return false;
+        int slot = furnace.getSlot();
+        this.steps[slot] = ticks - 1;
+        this.cookRate[slot] = furnace.canCook() ? 1 : 0;
+        this.stepping[slot] = true;
+        this.steppingSize++;
+        return true;
+    }
+
+    /**
+     * Stop stepping a furnace, so it can be ticked normally again
+     *
+     * @param furnace Furnace to stop stepping
+     */
+    public void stop(@NotNull Furnace furnace) {
+        int slot = furnace.getSlot();
+        if (!this.stepping[slot]) return;
+        this.steps[slot] = 0;
+        this.stepping[slot] = false;
+        this.steppingSize--;
+    }
+
+    /**
+     * Step all stepping furnaces by one tick
+     * <p>Furnaces which reach their next state change stop stepping,
+     * their slots can be fetched using {@link #getExpired(int)}</p>
+     *
+     * @return Amount of furnaces which stopped stepping
+     */
+    public int tick() {
+        int size = this.size;
+        int[] steps = this.steps;
+        int[] cookRate = this.cookRate;
+        Timers timers = this.timers;
+        int[] cookTime = timers.cookTime;
+        int[] fuelTime = timers.fuelTime;
+        for (int i = 0; i < size; i++) {
+            // 1 while steps are left, 0 otherwise
+            int step = (-steps[i]) >>> 31;
+            steps[i] -= step;
+            fuelTime[i] -= step;
+            cookTime[i] += step & cookRate[i];
+        }
+        int count = 0;
+        if (this.steppingSize > 0) {
+            boolean[] stepping = this.stepping;
+            for (int i = 0; i < size; i++) {
+                if (stepping[i] && steps[i] == 0) {
+                    stepping[i] = false;
+                    this.expired[count++] = i;
+                }
+            }
+            this.steppingSize -= count;
+        }
+        // Publish the stepped timers
+        this.timers = timers;
+        return count;
+    }
+
+    // Timers of the bound furnaces, read through a volatile reference
+    Timers timers() {
+        return this.timers;
+    }
+
+    // Experience is also taken out on the main thread, which must not write into arrays being copied
+    synchronized void setExperience(int slot, float experience) {
+        this.timers.experience[slot] = experience;
+    }
+
+    // Recipes and fuels are also resolved on the main thread when players change a furnace
+    synchronized void setResolved(int slot, int recipeId, int fuelId) {
+        Timers timers = this.timers;
+        timers.recipeId[slot] = recipeId;
+        timers.fuelId[slot] = fuelId;
+    }
+
+    /**
+     * Get the ID of the recipe a bound furnace is cooking
+     *
+     * @param slot Slot of furnace
+     * @return Ordinal of the ingredient type the recipe was found for, -1 if the furnace has no recipe
+     */
+    public int getRecipeId(int slot) {
+        return this.timers.recipeId[slot];
+    }
+
+    /**
+     * Get the ID of the fuel a bound furnace is burning
+     *
+     * @param slot Slot of furnace
+     * @return Ordinal of the fuel type the fuel was found for, -1 if the furnace has no fuel
+     */
+    public int getFuelId(int slot) {
+        return this.timers.fuelId[slot];
+    }
+
+    /**
+     * Get the slot of a furnace which stopped stepping during the last {@link #tick()}
+     *
+     * @param index Index below the amount returned by {@link #tick()}
+     * @return Slot of furnace
+     */
+    public int getExpired(int index) {
+        return this.expired[index];
+    }
+
+    /**
+     * Get the amount of furnaces bound to this store
+     *
+     * @return Amount of furnaces
+     */
+    public int size() {
+        return this.size - this.freeSize;
+    }
+
+    /**
+     * Get the amount of furnaces currently being stepped
+     *
+     * @return Amount of stepping furnaces
+     */
+    public int steppingSize() {
+        return this.steppingSize;
+    }
+
+    private synchronized void grow() {
+        int capacity = this.steps.length * 2;
+        this.timers = new Timers(this.timers, capacity);
+        this.steps = Arrays.copyOf(this.steps, capacity);
+        this.cookRate = Arrays.copyOf(this.cookRate, capacity);
+        this.stepping = Arrays.copyOf(this.stepping, capacity);
+        this.expired = Arrays.copyOf(this.expired, capacity);
+        this.free = Arrays.copyOf(this.free, capacity);
+    }
+
+    // Timer arrays, all of the same length, only ever replaced as a whole
+    static final class Timers {
+
+        final int[] cookTime;
+        final int[] cookTimeTotal;
+        final int[] fuelTime;
+        final int[] fuelTimeTotal;
+        final float[] experience;
+        // Recipe and fuel of each furnace, see getRecipeId and getFuelId
+        final int[] recipeId;
+        final int[] fuelId;
+
+        private Timers(int capacity) {
+            this.cookTime = new int[capacity];
+            this.cookTimeTotal = new int[capacity];
+            this.fuelTime = new int[capacity];
+            this.fuelTimeTotal = new int[capacity];
+            this.experience = new float[capacity];
+            this.recipeId = new int[capacity];
+            this.fuelId = new int[capacity];
+        }
+
+        private Timers(Timers timers, int capacity) {
+            this.cookTime = Arrays.copyOf(timers.cookTime, capacity);
+            this.cookTimeTotal = Arrays.copyOf(timers.cookTimeTotal, capacity);
+            this.fuelTime = Arrays.copyOf(timers.fuelTime, capacity);
+            this.fuelTimeTotal = Arrays.copyOf(timers.fuelTimeTotal, capacity);
+            this.experience = Arrays.copyOf(timers.experience, capacity);
+            this.recipeId = Arrays.copyOf(timers.recipeId, capacity);
+            this.fuelId = Arrays.copyOf(timers.fuelId, capacity);
+        }
+
+    }
+
+}
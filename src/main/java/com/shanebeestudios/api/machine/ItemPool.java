@@ -0,0 +1,65 @@
+package com.shanebeestudios.api.machine;
+
+import java.util.*;
+
+/**
+ * Shared pool of objects referenced by an {@link OffHeapFurnaceStore}
+ * <p>Equal objects share one entry, records only hold an int handle to it.
+ * Handle 0 always stands for null.</p>
+ */
+final class ItemPool {
+
+    private final List<Object> values = new ArrayList<>();
+    private final Map<Object, Integer> handles = new HashMap<>();
+    private int[] refs = new int[16];
+    private final Deque<Integer> free = new ArrayDeque<>();
+
+    /**
+     * Add a reference to an object
+     *
+     * @param value Object to reference
+     * @return Handle of the object
+     */
+    int acquire(Object value) {
+        if (value == null) return 0;
+        Integer handle = this.handles.get(value);
+        if (handle == null) {
+            if (this.free.isEmpty()) {
+                this.values.add(value);
+                handle = this.values.size();
+            } else {
+                handle = this.free.pop();
+                this.values.set(handle - 1, value);
+            }
+            if (handle >= this.refs.length) {
+                this.refs = Arrays.copyOf(this.refs, this.refs.length * 2);
+            }
+            this.handles.put(value, handle);
+        }
+        this.refs[handle]++;
+        return handle;
+    }
+
+    /**
+     * Remove a reference to an object, the entry is dropped once nothing references it
+     *
+     * @param handle Handle of the object
+     */
+    void release(int handle) {
+        if (handle == 0) return;
+        if (--this.refs[handle] == 0) {
+            this.handles.remove(this.values.get(handle - 1));
+            this.values.set(handle - 1, null);
+            this.free.push(handle);
+        }
+    }
+
+    Object get(int handle) {
+        return handle == 0 ? null : this.values.get(handle - 1);
+    }
+
+    int size() {
+        return this.handles.size();
+    }
+
+}
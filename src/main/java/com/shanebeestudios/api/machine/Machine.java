@@ -1,9 +1,15 @@
 package com.shanebeestudios.api.machine;
 
+import com.shanebeestudios.api.VirtualFurnaceAPI;
+import com.shanebeestudios.api.task.FurnaceTick;
+import com.shanebeestudios.api.task.MainThreadSync;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract machine class
@@ -13,6 +19,10 @@ public abstract class Machine {
 
     private final String name;
     private final UUID uniqueID;
+    private long lastTicked;
+    private final AtomicInteger viewers = new AtomicInteger();
+    private volatile boolean syncQueued;
+    private final AtomicBoolean dirty = new AtomicBoolean();
 
     Machine(@NotNull UUID uniqueID, String name) {
         this.uniqueID = uniqueID;
@@ -37,12 +47,229 @@ public abstract class Machine {
         return name;
     }
 
+    /**
+     * Get the time this machine's state was saved at when it was loaded
+     * <p>Used to catch up on progress made while the server was down</p>
+     *
+     * @return Time in epoch milliseconds, 0 if unknown
+     */
+    public long getLastTicked() {
+        return lastTicked;
+    }
+
+    void setLastTicked(long lastTicked) {
+        this.lastTicked = lastTicked;
+    }
+
     /**
      * Tick this machine.
      */
     public void tick() {
     }
 
+    /**
+     * Get the amount of ticks until the state of this machine changes
+     * <p>Until then, every tick makes the same predictable progress,
+     * which allows the ticks to be applied in one step using {@link #fastForward(long)}.</p>
+     *
+     * @return Ticks until the next state change, 1 if every tick has to be processed
+     */
+    public int getTicksUntilChange() {
+        return 1;
+    }
+
+    /**
+     * Fast forward this machine by a number of ticks
+     * <p>By default this simply ticks the machine repeatedly,
+     * machines override this to apply progress in larger steps.</p>
+     *
+     * @param ticks Amount of ticks to fast forward
+     */
+    public void fastForward(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * Catch up on a number of ticks that passed while this machine was not loaded
+     * <p>Unlike {@link #fastForward(long)} no events are called and results are applied in bulk,
+     * by default this simply fast forwards the machine.</p>
+     *
+     * @param ticks Amount of ticks to catch up on
+     */
+    public void catchUp(long ticks) {
+        fastForward(ticks);
+    }
+
+    /**
+     * Catch up on the ticks that passed since this machine was {@link #getLastTicked() last saved}
+     * <p>Used when loading machines in wall clock mode</p>
+     *
+     * @param now Current time in epoch milliseconds
+     * @return True if there were any ticks to catch up on
+     */
+    public boolean catchUpTo(long now) {
+        if (this.lastTicked <= 0) return false;
+        long ticks = (now - this.lastTicked) / 50;
+        if (ticks <= 0) return false;
+        this.lastTicked = now;
+        markDirty();
+        try {
+            catchUp(ticks);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return true;
+    }
+
+    /**
+     * Check whether this machine is idle
+     * <p>An idle machine can not make any progress until its contents change,
+     * it will stop ticking until it is {@link #wake() woken up} again.</p>
+     *
+     * @return True if idle
+     */
+    public boolean isIdle() {
+        return false;
+    }
+
+    /**
+     * Wake up this machine so it starts ticking again
+     * <p>This is done for you when changing a machine using the API or its inventory view,
+     * but should be called when changing the contents of a machine's inventory directly.</p>
+     */
+    public void wake() {
+        VirtualFurnaceAPI api = VirtualFurnaceAPI.getInstance();
+        FurnaceTick furnaceTick = api != null ? api.getFurnaceTick() : null;
+        if (furnaceTick != null) {
+            furnaceTick.wake(this);
+        }
+    }
+
+    /**
+     * Mark this machine as changed since it was last saved
+     * <p>This is done for you when changing a machine using the API or its inventory view,
+     * machines which are not {@link #isIdle() idle} are always saved.</p>
+     */
+    public void markDirty() {
+        if (!this.dirty.get()) this.dirty.set(true);
+    }
+
+    /**
+     * Check whether this machine changed since it was last saved
+     *
+     * @return True if this machine has to be saved
+     */
+    public boolean isDirty() {
+        return this.dirty.get() || !isIdle();
+    }
+
+    /**
+     * Check whether this machine has to be saved, and mark it as saved
+     * <p><b>Internal use only!</b></p>
+     *
+     * @return True if this machine has to be saved
+     */
+    public boolean takeDirty() {
+        // Cleared first, changes made while saving mark this machine again
+        return this.dirty.getAndSet(false) || !isIdle();
+    }
+
+    /**
+     * Check whether any player is viewing the inventory of this machine
+     *
+     * @return True if viewed
+     */
+    public boolean isViewed() {
+        return this.viewers.get() > 0;
+    }
+
+    /**
+     * Register a player opening the inventory of this machine
+     * <p><b>Internal use only!</b></p>
+     */
+    public void addViewer() {
+        this.viewers.incrementAndGet();
+        queueSync();
+    }
+
+    /**
+     * Register a player closing the inventory of this machine
+     * <p><b>Internal use only!</b></p>
+     */
+    public void removeViewer() {
+        // Take over whatever the player did right before closing
+        sync();
+        this.viewers.updateAndGet(viewers -> viewers > 0 ? viewers - 1 : 0);
+    }
+
+    /**
+     * Queue the inventory of this machine to be synced on the main thread
+     * <p>Nothing is queued while nobody is viewing the inventory,
+     * the inventory is synced again when it is opened.</p>
+     */
+    public void queueSync() {
+        // Every change to the contents of a machine queues a sync
+        markDirty();
+        if (this.viewers.get() == 0 || this.syncQueued) return;
+        VirtualFurnaceAPI api = VirtualFurnaceAPI.getInstance();
+        MainThreadSync mainThreadSync = api != null ? api.getMainThreadSync() : null;
+        if (mainThreadSync == null) return;
+        this.syncQueued = true;
+        mainThreadSync.queue(this);
+    }
+
+    /**
+     * Sync the inventory of this machine with its state
+     * <p>Changes players made in the inventory are taken over first,
+     * after which the inventory and its view properties are updated.</p>
+     * <p><b>Internal use only!</b> Must be called on the main thread</p>
+     */
+    public void sync() {
+        this.syncQueued = false;
+        boolean changed;
+        synchronized (this) {
+            changed = syncInventory();
+        }
+        if (changed) {
+            markDirty();
+            wake();
+        }
+    }
+
+    // Sync the inventory while holding the lock of this machine, returns true if players changed anything
+    abstract boolean syncInventory();
+
+    // Three way merge of an inventory slot, using the item the machine holds,
+    // the item last put in the inventory, and the item in the inventory now
+    static ItemStack merge(ItemStack current, ItemStack pushed, ItemStack viewed) {
+        if (same(viewed, pushed)) return current;
+        if (same(current, pushed)) return copy(viewed);
+        // Both changed, apply the player's change on top of the machine's change when the items stack
+        if (current != null && pushed != null && viewed != null && current.isSimilar(pushed) && viewed.isSimilar(pushed)) {
+            int amount = current.getAmount() + viewed.getAmount() - pushed.getAmount();
+            if (amount <= 0) return null;
+            ItemStack merged = current.clone();
+            merged.setAmount(Math.min(amount, merged.getMaxStackSize()));
+            return merged;
+        }
+        return copy(viewed);
+    }
+
+    static boolean same(ItemStack one, ItemStack two) {
+        if (isEmpty(one)) return isEmpty(two);
+        return one.equals(two);
+    }
+
+    static ItemStack copy(ItemStack itemStack) {
+        return isEmpty(itemStack) ? null : itemStack.clone();
+    }
+
+    private static boolean isEmpty(ItemStack itemStack) {
+        return itemStack == null || itemStack.getType().isAir() || itemStack.getAmount() <= 0;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
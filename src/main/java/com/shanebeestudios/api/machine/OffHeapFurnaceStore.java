@@ -0,0 +1,390 @@
+package com.shanebeestudios.api.machine;
+
+import com.shanebeestudios.api.property.FurnaceProperties;
+import com.shanebeestudios.api.storage.ReleasedMachines;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.*;
+
+import java.lang.ref.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Storage for inactive {@link Furnace Furnaces} outside of the Java heap
+ * <p>Each furnace is a fixed size record in a direct buffer, found through an off-heap UUID index.
+ * Items, properties and long names are kept as handles into a shared pool.
+ * Furnace objects are only created again when a furnace is {@link #remove(UUID) taken out}.</p>
+ * <p>Stored furnace objects are weakly kept while something still holds a reference to them,
+ * taking such a furnace out returns that same object, including any changes made to it since.</p>
+ * <p>Storages {@link com.shanebeestudios.api.storage.MachineStorage#release(UUID) release} stored furnaces,
+ * snapshots of them are {@link #collect(Predicate, Consumer) collected} from the records when a storage writes.</p>
+ * <p><b>Internal use only!</b></p>
+ */
+public final class OffHeapFurnaceStore implements ReleasedMachines {
+
+    private static final int NAME_BYTES = 64;
+    // Record layout
+    private static final int UUID_MOST = 0;
+    private static final int UUID_LEAST = 8;
+    private static final int LAST_TICKED = 16;
+    private static final int COOK_TIME = 24;
+    private static final int FUEL_TIME = 28;
+    private static final int EXPERIENCE = 32;
+    private static final int PROPERTIES = 36;
+    private static final int FUEL = 40;
+    private static final int INPUT = 44;
+    private static final int OUTPUT = 48;
+    // Length of the name in bytes, or -1 if the name is pooled
+    private static final int NAME_LENGTH = 52;
+    private static final int NAME = 56;
+    private static final int RECORD_SIZE = NAME + NAME_BYTES;
+
+    private final ItemPool pool = new ItemPool();
+    // Stored furnace objects which may still be referenced elsewhere
+    private Detached[] detached;
+    private final ReferenceQueue<Furnace> cleared = new ReferenceQueue<>();
+    private ByteBuffer records;
+    // Open addressing index of record slot + 1, 0 for an empty bucket
+    private ByteBuffer index;
+    private int capacity;
+    private int used;
+    private int freeSlot = -1;
+    private int size;
+
+    public OffHeapFurnaceStore() {
+        this.capacity = 1024;
+        this.records = ByteBuffer.allocateDirect(this.capacity * RECORD_SIZE);
+        this.index = ByteBuffer.allocateDirect(this.capacity * 2 * 4);
+        this.detached = new Detached[this.capacity];
+    }
+
+    /**
+     * Move a furnace into this store
+     * <p>The furnace object is marked as offloaded, changing it afterwards moves it back out.</p>
+     *
+     * @param furnace Furnace to store
+     */
+    public synchronized void put(@NotNull Furnace furnace) {
+        UUID uuid = furnace.getUniqueID();
+        if (find(uuid) >= 0) return;
+        expungeCleared();
+        furnace.offloaded = true;
+        int slot;
+        if (this.freeSlot >= 0) {
+            slot = this.freeSlot;
+            // Free records link to the next free record through their cook time
+            this.freeSlot = this.records.getInt(slot * RECORD_SIZE + COOK_TIME);
+        } else {
+            if (this.used == this.capacity) {
+                grow();
+            }
+            slot = this.used++;
+        }
+        this.detached[slot] = new Detached(furnace, slot, this.cleared);
+        int base = slot * RECORD_SIZE;
+        ByteBuffer records = this.records;
+        records.putLong(base + UUID_MOST, uuid.getMostSignificantBits());
+        records.putLong(base + UUID_LEAST, uuid.getLeastSignificantBits());
+        records.putLong(base + LAST_TICKED, furnace.getLastTicked());
+        records.putInt(base + COOK_TIME, furnace.cookTime());
+        records.putInt(base + FUEL_TIME, furnace.fuelTime());
+        records.putFloat(base + EXPERIENCE, furnace.experience());
+        records.putInt(base + PROPERTIES, this.pool.acquire(furnace.getProperties()));
+        records.putInt(base + FUEL, acquireItem(furnace.getFuel()));
+        records.putInt(base + INPUT, acquireItem(furnace.getInput()));
+        records.putInt(base + OUTPUT, acquireItem(furnace.getOutput()));
+        byte[] name = furnace.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length <= NAME_BYTES) {
+            records.putInt(base + NAME_LENGTH, name.length);
+            records.put(base + NAME, name);
+        } else {
+            records.putInt(base + NAME_LENGTH, -1);
+            records.putInt(base + NAME, this.pool.acquire(furnace.getName()));
+        }
+        insert(uuid, slot);
+        this.size++;
+    }
+
+    /**
+     * Take a furnace out of this store
+     *
+     * @param uuid ID of furnace
+     * @return Furnace object, or null if this store does not hold the furnace
+     */
+    public synchronized @Nullable Furnace remove(@NotNull UUID uuid) {
+        int bucket = find(uuid);
+        if (bucket < 0) return null;
+        int slot = this.index.getInt(bucket * 4) - 1;
+        expungeCleared();
+        Furnace furnace = live(slot);
+        this.detached[slot] = null;
+        if (furnace == null) {
+            furnace = read(slot);
+        }
+        furnace.offloaded = false;
+        release(slot);
+        delete(bucket);
+        this.records.putInt(slot * RECORD_SIZE + COOK_TIME, this.freeSlot);
+        this.freeSlot = slot;
+        this.size--;
+        return furnace;
+    }
+
+    /**
+     * Check whether this store holds a furnace
+     *
+     * @param uuid ID of furnace
+     * @return True if stored
+     */
+    public synchronized boolean contains(@NotNull UUID uuid) {
+        return find(uuid) >= 0;
+    }
+
+    /**
+     * Get the amount of furnaces in this store
+     *
+     * @return Amount of furnaces
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Run an action for each furnace in this store
+     * <p>Furnaces which are no longer referenced elsewhere are temporary copies,
+     * which are not tracked, changes to them are not kept</p>
+     *
+     * @param action Action to run
+     */
+    public synchronized void forEach(@NotNull Consumer<Furnace> action) {
+        int buckets = this.index.capacity() / 4;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int slot = this.index.getInt(bucket * 4) - 1;
+            if (slot >= 0) {
+                Furnace furnace = live(slot);
+                action.accept(furnace != null ? furnace : read(slot));
+            }
+        }
+    }
+
+    /**
+     * Run an action for the ID of each furnace in this store
+     *
+     * @param action Action to run
+     */
+    public synchronized void forEachID(@NotNull Consumer<UUID> action) {
+        int buckets = this.index.capacity() / 4;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int slot = this.index.getInt(bucket * 4) - 1;
+            if (slot >= 0) {
+                int base = slot * RECORD_SIZE;
+                action.accept(new UUID(this.records.getLong(base + UUID_MOST), this.records.getLong(base + UUID_LEAST)));
+            }
+        }
+    }
+
+    /**
+     * Take snapshots of stored furnaces
+     * <p>Snapshots are built from the records, in the same form as {@link Furnace#serialize()},
+     * without creating furnace objects. The action runs while holding this store,
+     * so no furnace can be put in or taken out until it returns.</p>
+     *
+     * @param filter Filter for IDs of furnaces to take snapshots of
+     * @param action Receives the snapshots
+     */
+    @Override
+    public synchronized void collect(@NotNull Predicate<UUID> filter, @NotNull Consumer<List<Map<String, Object>>> action) {
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        String alias = ConfigurationSerialization.getAlias(Furnace.class);
+        long now = System.currentTimeMillis();
+        int buckets = this.index.capacity() / 4;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int slot = this.index.getInt(bucket * 4) - 1;
+            if (slot < 0) continue;
+            int base = slot * RECORD_SIZE;
+            UUID uuid = new UUID(this.records.getLong(base + UUID_MOST), this.records.getLong(base + UUID_LEAST));
+            if (filter.test(uuid)) {
+                snapshots.add(snapshot(slot, uuid, alias, now));
+            }
+        }
+        action.accept(snapshots);
+    }
+
+    /**
+     * Take a snapshot of a stored furnace
+     * <p>Used to {@link com.shanebeestudios.api.storage.MachineStorage#restore(UUID, Map) restore} a furnace
+     * to its storage when it is taken out, see {@link #collect(Predicate, Consumer)}.</p>
+     *
+     * @param uuid ID of furnace
+     * @return Snapshot of furnace, or null if this store does not hold the furnace
+     */
+    public synchronized @Nullable Map<String, Object> snapshot(@NotNull UUID uuid) {
+        int bucket = find(uuid);
+        if (bucket < 0) return null;
+        return snapshot(this.index.getInt(bucket * 4) - 1, uuid, ConfigurationSerialization.getAlias(Furnace.class), System.currentTimeMillis());
+    }
+
+    private Map<String, Object> snapshot(int slot, UUID uuid, String alias, long now) {
+        int base = slot * RECORD_SIZE;
+        ByteBuffer records = this.records;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+        snapshot.put("name", readName(slot));
+        snapshot.put("uuid", uuid.toString());
+        snapshot.put("properties", this.pool.get(records.getInt(base + PROPERTIES)));
+        snapshot.put("cookTime", records.getInt(base + COOK_TIME));
+        snapshot.put("fuelTime", records.getInt(base + FUEL_TIME));
+        snapshot.put("xp", records.getFloat(base + EXPERIENCE));
+        // Pooled items are never changed, so snapshots can share them without copying
+        snapshot.put("fuel", this.pool.get(records.getInt(base + FUEL)));
+        snapshot.put("input", this.pool.get(records.getInt(base + INPUT)));
+        snapshot.put("output", this.pool.get(records.getInt(base + OUTPUT)));
+        snapshot.put("lastTicked", now);
+        return snapshot;
+    }
+
+    // Stored furnace object which is still referenced elsewhere, may hold changes made after it was stored
+    private Furnace live(int slot) {
+        Detached reference = this.detached[slot];
+        return reference != null ? reference.get() : null;
+    }
+
+    private void expungeCleared() {
+        Reference<? extends Furnace> reference;
+        while ((reference = this.cleared.poll()) != null) {
+            int slot = ((Detached) reference).slot;
+            if (this.detached[slot] == reference) {
+                this.detached[slot] = null;
+            }
+        }
+    }
+
+    private String readName(int slot) {
+        int base = slot * RECORD_SIZE;
+        int nameLength = this.records.getInt(base + NAME_LENGTH);
+        if (nameLength < 0) {
+            return (String) this.pool.get(this.records.getInt(base + NAME));
+        }
+        byte[] bytes = new byte[nameLength];
+        this.records.get(base + NAME, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Furnace read(int slot) {
+        int base = slot * RECORD_SIZE;
+        ByteBuffer records = this.records;
+        UUID uuid = new UUID(records.getLong(base + UUID_MOST), records.getLong(base + UUID_LEAST));
+        Furnace furnace = new Furnace(readName(slot), uuid, records.getInt(base + COOK_TIME), records.getInt(base + FUEL_TIME),
+                records.getFloat(base + EXPERIENCE), getItem(records.getInt(base + FUEL)), getItem(records.getInt(base + INPUT)),
+                getItem(records.getInt(base + OUTPUT)), (FurnaceProperties) this.pool.get(records.getInt(base + PROPERTIES)));
+        furnace.setLastTicked(records.getLong(base + LAST_TICKED));
+        return furnace;
+    }
+
+    private void release(int slot) {
+        int base = slot * RECORD_SIZE;
+        this.pool.release(this.records.getInt(base + PROPERTIES));
+        this.pool.release(this.records.getInt(base + FUEL));
+        this.pool.release(this.records.getInt(base + INPUT));
+        this.pool.release(this.records.getInt(base + OUTPUT));
+        if (this.records.getInt(base + NAME_LENGTH) < 0) {
+            this.pool.release(this.records.getInt(base + NAME));
+        }
+    }
+
+    // Pooled items are shared between records, so they are copied in and out
+    private int acquireItem(ItemStack itemStack) {
+        return this.pool.acquire(itemStack != null ? itemStack.clone() : null);
+    }
+
+    private ItemStack getItem(int handle) {
+        ItemStack itemStack = (ItemStack) this.pool.get(handle);
+        return itemStack != null ? itemStack.clone() : null;
+    }
+
+    private int bucketOf(long most, long least, int mask) {
+        long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private int find(UUID uuid) {
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        int mask = this.index.capacity() / 4 - 1;
+        int bucket = bucketOf(most, least, mask);
+        while (true) {
+            int slot = this.index.getInt(bucket * 4) - 1;
+            if (slot < 0) return -1;
+            int base = slot * RECORD_SIZE;
+            if (this.records.getLong(base + UUID_MOST) == most && this.records.getLong(base + UUID_LEAST) == least) {
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    private void insert(UUID uuid, int slot) {
+        int mask = this.index.capacity() / 4 - 1;
+        int bucket = bucketOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), mask);
+        while (this.index.getInt(bucket * 4) != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        this.index.putInt(bucket * 4, slot + 1);
+    }
+
+    // Linear probing delete, shifting following entries back so lookups never hit a gap
+    private void delete(int bucket) {
+        int mask = this.index.capacity() / 4 - 1;
+        int hole = bucket;
+        int next = (hole + 1) & mask;
+        while (true) {
+            int entry = this.index.getInt(next * 4);
+            if (entry == 0) break;
+            int base = (entry - 1) * RECORD_SIZE;
+            int home = bucketOf(this.records.getLong(base + UUID_MOST), this.records.getLong(base + UUID_LEAST), mask);
+            // Move the entry into the hole if its home bucket is not between the hole and its position
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                this.index.putInt(hole * 4, entry);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.index.putInt(hole * 4, 0);
+    }
+
+    private void grow() {
+        int capacity = this.capacity * 2;
+        ByteBuffer records = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+        records.put(0, this.records, 0, this.used * RECORD_SIZE);
+        this.records = records;
+        this.detached = Arrays.copyOf(this.detached, capacity);
+        this.capacity = capacity;
+
+        // Rebuild the index at twice the record capacity, keeping the load factor at most half
+        ByteBuffer oldIndex = this.index;
+        this.index = ByteBuffer.allocateDirect(capacity * 2 * 4);
+        int buckets = oldIndex.capacity() / 4;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int entry = oldIndex.getInt(bucket * 4);
+            if (entry != 0) {
+                int base = (entry - 1) * RECORD_SIZE;
+                insert(new UUID(records.getLong(base + UUID_MOST), records.getLong(base + UUID_LEAST)), entry - 1);
+            }
+        }
+    }
+
+    private static final class Detached extends WeakReference<Furnace> {
+
+        private final int slot;
+
+        private Detached(Furnace furnace, int slot, ReferenceQueue<Furnace> queue) {
+            super(furnace, queue);
+            this.slot = slot;
+        }
+
+    }
+
+}
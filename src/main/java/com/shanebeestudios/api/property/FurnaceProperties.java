@@ -1,6 +1,7 @@
 package com.shanebeestudios.api.property;
 
 import com.shanebeestudios.api.machine.Furnace;
+import com.shanebeestudios.api.recipe.RecipeBook;
 import com.shanebeestudios.api.util.Util;
 import org.bukkit.*;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
@@ -18,24 +19,27 @@ public class FurnaceProperties extends Properties implements Keyed, Configuratio
     /**
      * Pre-made property to mimic a vanilla Minecraft furnace
      * <p>Cook speed = 1.0
-     * <br>Fuel speed = 1.0</p>
+     * <br>Fuel speed = 1.0
+     * <br>Recipe book = {@link RecipeBook#FURNACE}</p>
      */
-    public static final FurnaceProperties FURNACE = build("furnace", 1.0, 1.0);
+    public static final FurnaceProperties FURNACE = build("furnace", 1.0, 1.0, RecipeBook.FURNACE);
     /**
      * Pre-made property to mimic a vanilla Minecraft blast furnace
      * <p>Cook speed = 2.0
-     * <br>Fuel speed = 1.0</p>
+     * <br>Fuel speed = 1.0
+     * <br>Recipe book = {@link RecipeBook#BLASTING}</p>
      */
-    public static final FurnaceProperties BLAST_FURNACE = build("blast_furnace", 2.0, 2.0);
+    public static final FurnaceProperties BLAST_FURNACE = build("blast_furnace", 2.0, 2.0, RecipeBook.BLASTING);
     /**
      * Pre-made property to mimic a vanilla Minecraft smoker
      * <p>Cook speed = 2.0
-     * <br>Fuel speed = 1.0</p>ex
+     * <br>Fuel speed = 1.0
+     * <br>Recipe book = {@link RecipeBook#SMOKING}</p>
      */
-    public static final FurnaceProperties SMOKER = build("smoker", 2.0, 2.0);
+    public static final FurnaceProperties SMOKER = build("smoker", 2.0, 2.0, RecipeBook.SMOKING);
 
-    private static FurnaceProperties build(String key, double cookX, double fuelX) {
-        return new FurnaceProperties("properties_" + key).cookMultiplier(cookX).fuelMultiplier(fuelX);
+    private static FurnaceProperties build(String key, double cookX, double fuelX, RecipeBook recipeBook) {
+        return new FurnaceProperties("properties_" + key).cookMultiplier(cookX).fuelMultiplier(fuelX).recipeBooks(recipeBook);
     }
 
     private static FurnaceProperties getProperty(String key) {
@@ -49,6 +53,7 @@ public class FurnaceProperties extends Properties implements Keyed, Configuratio
 
     private double cookX;
     private double fuelX;
+    private RecipeBook[] recipeBooks;
 
     /** Create a new property for use in a {@link Furnace}
      * @param key Key for this property
@@ -57,6 +62,7 @@ public class FurnaceProperties extends Properties implements Keyed, Configuratio
         super(Util.getKey(key.toLowerCase()));
         this.cookX = 1.0;
         this.fuelX = 1.0;
+        this.recipeBooks = new RecipeBook[]{RecipeBook.FURNACE};
         //KEY_MAP.put(this.key, this);
     }
 
@@ -92,6 +98,38 @@ public class FurnaceProperties extends Properties implements Keyed, Configuratio
         return this.fuelX;
     }
 
+    /** Set the recipe books furnaces with this property cook from
+     * <p>Defaults to {@link RecipeBook#FURNACE}</p>
+     * @param recipeBooks Recipe books to use
+     * @return Returns an instance of itself with the recipe books changed
+     */
+    public FurnaceProperties recipeBooks(RecipeBook... recipeBooks) {
+        // Keep a fixed order without duplicates, lookups go through this array
+        Set<RecipeBook> books = EnumSet.noneOf(RecipeBook.class);
+        Collections.addAll(books, recipeBooks);
+        this.recipeBooks = books.toArray(new RecipeBook[0]);
+        return this;
+    }
+
+    /** Get the recipe books furnaces with this property cook from
+     * @return Recipe books of this property
+     */
+    public Set<RecipeBook> getRecipeBooks() {
+        Set<RecipeBook> books = EnumSet.noneOf(RecipeBook.class);
+        Collections.addAll(books, this.recipeBooks);
+        return books;
+    }
+
+    /**
+     * Get the recipe books furnaces with this property cook from
+     * <p><b>Internal use only!</b> The returned array must not be modified</p>
+     *
+     * @return Recipe books of this property
+     */
+    public RecipeBook[] getRecipeBookArray() {
+        return this.recipeBooks;
+    }
+
     @NotNull
     @Override
     public NamespacedKey getKey() {
@@ -103,12 +141,12 @@ public class FurnaceProperties extends Properties implements Keyed, Configuratio
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FurnaceProperties that = (FurnaceProperties) o;
-        return Double.compare(that.cookX, cookX) == 0 && Double.compare(that.fuelX, fuelX) == 0;
+        return Double.compare(that.cookX, cookX) == 0 && Double.compare(that.fuelX, fuelX) == 0 && Arrays.equals(that.recipeBooks, recipeBooks);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(cookX, fuelX);
+        return Objects.hash(cookX, fuelX, Arrays.hashCode(recipeBooks));
     }
 
     @Override
@@ -117,6 +155,7 @@ public class FurnaceProperties extends Properties implements Keyed, Configuratio
                 "key=" + key +
                 ", cookX=" + cookX +
                 ", fuelX=" + fuelX +
+                ", recipeBooks=" + Arrays.toString(recipeBooks) +
                 '}';
     }
 
@@ -126,6 +165,11 @@ public class FurnaceProperties extends Properties implements Keyed, Configuratio
         result.put("key", this.key.toString());
         result.put("cookX", this.cookX);
         result.put("fuelX", this.fuelX);
+        List<String> books = new ArrayList<>();
+        for (RecipeBook recipeBook : this.recipeBooks) {
+            books.add(recipeBook.name());
+        }
+        result.put("recipeBooks", books);
         return result;
     }
 
@@ -137,7 +181,15 @@ public class FurnaceProperties extends Properties implements Keyed, Configuratio
         if (furnaceProperties != null) {
             return furnaceProperties;
         } else {
-            return new FurnaceProperties(stringKey).cookMultiplier(cook).fuelMultiplier(fuel);
+            FurnaceProperties properties = new FurnaceProperties(stringKey).cookMultiplier(cook).fuelMultiplier(fuel);
+            if (args.get("recipeBooks") instanceof List<?> books && !books.isEmpty()) {
+                List<RecipeBook> recipeBooks = new ArrayList<>();
+                for (Object book : books) {
+                    recipeBooks.add(RecipeBook.valueOf(book.toString()));
+                }
+                properties.recipeBooks(recipeBooks.toArray(new RecipeBook[0]));
+            }
+            return properties;
         }
     }
 
@@ -3,7 +3,8 @@ package com.shanebeestudios.api.recipe;
 import com.shanebeestudios.api.machine.Furnace;
 import com.shanebeestudios.api.util.Util;
 import org.bukkit.*;
-import org.bukkit.inventory.*;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.*;
 
 import java.util.*;
 
@@ -13,49 +14,13 @@ import java.util.*;
 @SuppressWarnings("unused")
 public class FurnaceRecipe extends Recipe {
 
-    private static final boolean HAS_SMOKING = Util.isRunningMinecraft(1, 14);
-    private static final List<FurnaceRecipe> VANILLA_FURNACE_RECIPES = new ArrayList<>();
-    private static final List<FurnaceRecipe> VANILLA_SMOKING_RECIPES = new ArrayList<>();
-    private static final List<FurnaceRecipe> VANILLA_BLASTING_RECIPES = new ArrayList<>();
-
-    private static final List<Material> APPLICABLE_LOGTYPES = new ArrayList<>();
-
-    static {
-
-        for (Material material : Material.values()) {
-            if (material.name().contains("_LOG") || material.name().contains("_WOOD")) {
-                APPLICABLE_LOGTYPES.add(material);
-            }
-        }
-
-        Bukkit.recipeIterator().forEachRemaining(recipe -> {
-            if (recipe instanceof org.bukkit.inventory.FurnaceRecipe) {
-                org.bukkit.inventory.FurnaceRecipe r = ((org.bukkit.inventory.FurnaceRecipe) recipe);
-                FurnaceRecipe rec = new FurnaceRecipe(Util.getKey("mc_furnace_" + r.getKey().getKey()), r.getInput().getType(), r.getResult().getType(), r.getCookingTime(), r.getExperience());
-                if (r.getResult().getType() == Material.CHARCOAL) {
-
-                    APPLICABLE_LOGTYPES.forEach((mat)-> {
-                        FurnaceRecipe charCoal = new FurnaceRecipe(Util.getKey("mc_furnace_charcoal_" + mat.name().toLowerCase()), mat, Material.CHARCOAL, r.getCookingTime(), r.getExperience());
-                        VANILLA_FURNACE_RECIPES.add(charCoal);
-                    });
-
-                } else
-                    VANILLA_FURNACE_RECIPES.add(rec);
-            } else if (HAS_SMOKING) {
-                if (recipe instanceof SmokingRecipe) {
-                    SmokingRecipe r = ((SmokingRecipe) recipe);
-                    FurnaceRecipe rec = new FurnaceRecipe(Util.getKey("mc_smoking_" + r.getKey().getKey()), r.getInput().getType(), r.getResult().getType(), r.getCookingTime(), r.getExperience());
-                    VANILLA_SMOKING_RECIPES.add(rec);
-                } else if (recipe instanceof BlastingRecipe) {
-                    BlastingRecipe r = ((BlastingRecipe) recipe);
-                    FurnaceRecipe rec = new FurnaceRecipe(Util.getKey("mc_blasting_" + r.getKey().getKey()), r.getInput().getType(), r.getResult().getType(), r.getCookingTime(), r.getExperience());
-                    VANILLA_BLASTING_RECIPES.add(rec);
-                }
-            }
-        });
-    }
+    // Loaded on first use, see VanillaFurnaceRecipes
+    private static volatile VanillaFurnaceRecipes vanillaRecipes;
 
     private final Material ingredient;
+    // Null if only the type of the ingredient matters
+    private final IngredientMatch ingredientMatch;
+    private final boolean itemResult;
     private final int cookTime;
     private final float experience;
 
@@ -84,6 +49,28 @@ public class FurnaceRecipe extends Recipe {
     public FurnaceRecipe(NamespacedKey key, Material ingredient, Material result, int cookTime, float experience) {
         super(key, result);
         this.ingredient = ingredient;
+        this.ingredientMatch = null;
+        this.itemResult = false;
+        this.cookTime = cookTime;
+        this.experience = experience;
+    }
+
+    /**
+     * Create a new recipe for a {@link Furnace} which matches on more than the type of the ingredient
+     * <p>Useful for custom items, see {@link IngredientMatch}</p>
+     *
+     * @param key        Key for recipe
+     * @param ingredient Match for the ingredient to be put into furnace
+     * @param result     The resulting item from this recipe
+     * @param cookTime   Time to cook this item (in ticks)
+     * @param experience The experience the player will receive for cooking this item
+     */
+    public FurnaceRecipe(NamespacedKey key, @NotNull IngredientMatch ingredient, @NotNull ItemStack result, int cookTime, float experience) {
+        super(key, result.clone());
+        this.result.setAmount(1);
+        this.ingredient = ingredient.getType();
+        this.ingredientMatch = ingredient.hasAttributes() ? ingredient.copy() : null;
+        this.itemResult = true;
         this.cookTime = cookTime;
         this.experience = experience;
     }
@@ -94,7 +81,7 @@ public class FurnaceRecipe extends Recipe {
      * @return List of vanilla furnace recipes
      */
     public static List<FurnaceRecipe> getVanillaFurnaceRecipes() {
-        return VANILLA_FURNACE_RECIPES;
+        return vanillaRecipes().furnace;
     }
 
     /**
@@ -104,7 +91,7 @@ public class FurnaceRecipe extends Recipe {
      * @return List of vanilla smoking recipes
      */
     public static List<FurnaceRecipe> getVanillaSmokingRecipes() {
-        return VANILLA_SMOKING_RECIPES;
+        return vanillaRecipes().smoking;
     }
 
     /**
@@ -114,7 +101,33 @@ public class FurnaceRecipe extends Recipe {
      * @return List of vanilla blasting recipes
      */
     public static List<FurnaceRecipe> getVanillaBlastingRecipes() {
-        return VANILLA_BLASTING_RECIPES;
+        return vanillaRecipes().blasting;
+    }
+
+    /**
+     * Load the vanilla Minecraft recipes, if they were not loaded yet
+     * <p>This is done for you on the main thread when the API is created, the server's recipes can only be read there.
+     * Getting the vanilla recipes from another thread before they were loaded throws an {@link IllegalStateException}.</p>
+     */
+    public static void loadVanillaRecipes() {
+        vanillaRecipes();
+    }
+
+    private static VanillaFurnaceRecipes vanillaRecipes() {
+        VanillaFurnaceRecipes recipes = vanillaRecipes;
+        if (recipes != null) return recipes;
+        // Waiting for the main thread here could deadlock, if the main thread is waiting on this thread
+        if (!Bukkit.isPrimaryThread()) {
+            throw new IllegalStateException("Vanilla recipes have to be loaded on the main thread first, see loadVanillaRecipes()");
+        }
+        synchronized (FurnaceRecipe.class) {
+            recipes = vanillaRecipes;
+            if (recipes == null) {
+                recipes = VanillaFurnaceRecipes.load();
+                vanillaRecipes = recipes;
+            }
+        }
+        return recipes;
     }
 
     /**
@@ -126,6 +139,29 @@ public class FurnaceRecipe extends Recipe {
         return this.ingredient;
     }
 
+    /**
+     * Get the match for the ingredient of this recipe
+     *
+     * <p>Changes to the returned match do not change this recipe</p>
+     *
+     * @return Copy of the match for ingredient, null if only the {@link #getIngredient() type} of the ingredient matters
+     */
+    public @Nullable IngredientMatch getIngredientMatch() {
+        return this.ingredientMatch != null ? this.ingredientMatch.copy() : null;
+    }
+
+    /**
+     * Check whether an item is the result of this recipe
+     * <p>For recipes with an item result the full item is compared, otherwise only its type</p>
+     *
+     * @param itemStack Item to check
+     * @return True if the item is the result
+     */
+    public boolean isResult(@NotNull ItemStack itemStack) {
+        if (this.itemResult) return this.result.isSimilar(itemStack);
+        return itemStack.getType() == this.result.getType();
+    }
+
     /**
      * Get the cook time for this recipe
      *
@@ -149,19 +185,20 @@ public class FurnaceRecipe extends Recipe {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FurnaceRecipe recipe = (FurnaceRecipe) o;
-        return cookTime == recipe.cookTime && Float.compare(recipe.experience, experience) == 0 && ingredient == recipe.ingredient;
+        return cookTime == recipe.cookTime && Float.compare(recipe.experience, experience) == 0 && ingredient == recipe.ingredient &&
+                Objects.equals(ingredientMatch, recipe.ingredientMatch);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(ingredient, cookTime, experience);
+        return Objects.hash(ingredient, ingredientMatch, cookTime, experience);
     }
 
     @Override
     public String toString() {
         return "FurnaceRecipe{" +
                 "key=" + key +
-                ", ingredient=" + ingredient +
+                ", ingredient=" + (ingredientMatch != null ? ingredientMatch : ingredient) +
                 ", result=" + result +
                 ", cookTime=" + cookTime +
                 ", experience=" + experience +
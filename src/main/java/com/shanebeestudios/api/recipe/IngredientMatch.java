@@ -0,0 +1,172 @@
+package com.shanebeestudios.api.recipe;
+
+import org.bukkit.*;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Describes which items match the ingredient of a {@link FurnaceRecipe}
+ * <p>Besides the type, a match can require a custom model data, a display name
+ * and string values in the item's persistent data container. Attributes which are not set are ignored.</p>
+ * <p>Matches are compared by value, so a furnace can find the recipe for its input
+ * with a hash lookup of the input's fingerprint, instead of comparing it to every recipe.</p>
+ */
+@SuppressWarnings("unused")
+public final class IngredientMatch {
+
+    private final Material type;
+    private Integer customModelData;
+    private String displayName;
+    private final Map<NamespacedKey, String> persistentData = new HashMap<>();
+
+    /**
+     * Create a new ingredient match
+     *
+     * @param type Type of the ingredient
+     */
+    public IngredientMatch(@NotNull Material type) {
+        this.type = type;
+    }
+
+    /**
+     * Require a custom model data
+     *
+     * @param customModelData Custom model data to require
+     * @return Returns an instance of itself with the custom model data required
+     */
+    public IngredientMatch customModelData(int customModelData) {
+        this.customModelData = customModelData;
+        return this;
+    }
+
+    /**
+     * Require a display name
+     *
+     * @param displayName Display name to require
+     * @return Returns an instance of itself with the display name required
+     */
+    public IngredientMatch displayName(@NotNull String displayName) {
+        this.displayName = displayName;
+        return this;
+    }
+
+    /**
+     * Require a {@link PersistentDataType#STRING string} value in the item's persistent data container
+     *
+     * @param key   Key of the value
+     * @param value Value to require
+     * @return Returns an instance of itself with the value required
+     */
+    public IngredientMatch persistentData(@NotNull NamespacedKey key, @NotNull String value) {
+        this.persistentData.put(key, value);
+        return this;
+    }
+
+    /**
+     * Get the type of the ingredient
+     *
+     * @return Type of ingredient
+     */
+    public Material getType() {
+        return this.type;
+    }
+
+    /**
+     * Check whether this match requires anything besides the type
+     *
+     * @return True if any attribute is required
+     */
+    public boolean hasAttributes() {
+        return this.customModelData != null || this.displayName != null || !this.persistentData.isEmpty();
+    }
+
+    /**
+     * Check if an item matches
+     *
+     * @param itemStack Item to check
+     * @return True if the item matches
+     */
+    public boolean matches(ItemStack itemStack) {
+        if (itemStack == null || itemStack.getType() != this.type) return false;
+        if (!hasAttributes()) return true;
+        if (!itemStack.hasItemMeta()) return false;
+        return equals(fingerprint(itemStack.getType(), itemStack.getItemMeta()));
+    }
+
+    /**
+     * Get the fingerprint of an item, made of the same attributes this match requires
+     * <p>The fingerprint equals this match if the item matches</p>
+     *
+     * @param type Type of the item
+     * @param meta Meta of the item
+     * @return Fingerprint of item, or null if the item is missing any of the attributes
+     */
+    IngredientMatch fingerprint(Material type, ItemMeta meta) {
+        IngredientMatch fingerprint = new IngredientMatch(type);
+        if (this.customModelData != null) {
+            if (!meta.hasCustomModelData()) return null;
+            fingerprint.customModelData = meta.getCustomModelData();
+        }
+        if (this.displayName != null) {
+            if (!meta.hasDisplayName()) return null;
+            fingerprint.displayName = meta.getDisplayName();
+        }
+        if (!this.persistentData.isEmpty()) {
+            PersistentDataContainer container = meta.getPersistentDataContainer();
+            for (NamespacedKey key : this.persistentData.keySet()) {
+                String value = container.get(key, PersistentDataType.STRING);
+                if (value == null) return null;
+                fingerprint.persistentData.put(key, value);
+            }
+        }
+        return fingerprint;
+    }
+
+    // Whether both matches require the same attributes, regardless of their values
+    boolean sameAttributes(IngredientMatch other) {
+        return (this.customModelData == null) == (other.customModelData == null)
+                && (this.displayName == null) == (other.displayName == null)
+                && this.persistentData.keySet().equals(other.persistentData.keySet());
+    }
+
+    int attributeCount() {
+        return (this.customModelData != null ? 1 : 0) + (this.displayName != null ? 1 : 0) + this.persistentData.size();
+    }
+
+    IngredientMatch copy() {
+        IngredientMatch copy = new IngredientMatch(this.type);
+        copy.customModelData = this.customModelData;
+        copy.displayName = this.displayName;
+        copy.persistentData.putAll(this.persistentData);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IngredientMatch that = (IngredientMatch) o;
+        return type == that.type && Objects.equals(customModelData, that.customModelData) &&
+                Objects.equals(displayName, that.displayName) && persistentData.equals(that.persistentData);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, customModelData, displayName, persistentData);
+    }
+
+    @Override
+    public String toString() {
+        return "IngredientMatch{" +
+                "type=" + type +
+                (customModelData != null ? ", customModelData=" + customModelData : "") +
+                (displayName != null ? ", displayName='" + displayName + '\'' : "") +
+                (!persistentData.isEmpty() ? ", persistentData=" + persistentData : "") +
+                '}';
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.shanebeestudios.api.recipe;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.*;
+
+import java.util.*;
+
+/**
+ * Index of the {@link FurnaceRecipe FurnaceRecipes} of one ingredient type which match on more than the type
+ * <p>Recipes are found by the fingerprint of an item, one hash lookup for each distinct set of
+ * attributes the recipes require. Sets requiring more attributes are tried first.</p>
+ * <p><b>Internal use only!</b></p>
+ */
+public final class ItemRecipeIndex {
+
+    // One match for each distinct set of required attributes
+    private final IngredientMatch[] shapes;
+    private final Map<IngredientMatch, FurnaceRecipe> recipes = new HashMap<>();
+
+    /**
+     * Create an index of recipes, the first recipe for a match wins
+     *
+     * @param furnaceRecipes Recipes which all {@link FurnaceRecipe#getIngredientMatch() match} on the same type
+     */
+    public ItemRecipeIndex(@NotNull Collection<FurnaceRecipe> furnaceRecipes) {
+        List<IngredientMatch> shapes = new ArrayList<>();
+        for (FurnaceRecipe recipe : furnaceRecipes) {
+            IngredientMatch match = recipe.getIngredientMatch();
+            this.recipes.putIfAbsent(match, recipe);
+            if (shapes.stream().noneMatch(match::sameAttributes)) {
+                shapes.add(match);
+            }
+        }
+        shapes.sort(Comparator.comparingInt(IngredientMatch::attributeCount).reversed());
+        this.shapes = shapes.toArray(new IngredientMatch[0]);
+    }
+
+    /**
+     * Get the recipe for an item
+     *
+     * @param itemStack Item to find recipe for
+     * @return Recipe for the item, or null if none of the recipes match
+     */
+    public @Nullable FurnaceRecipe get(@NotNull ItemStack itemStack) {
+        if (!itemStack.hasItemMeta()) return null;
+        ItemMeta meta = itemStack.getItemMeta();
+        for (IngredientMatch shape : this.shapes) {
+            IngredientMatch fingerprint = shape.fingerprint(itemStack.getType(), meta);
+            if (fingerprint == null) continue;
+            FurnaceRecipe recipe = this.recipes.get(fingerprint);
+            if (recipe != null) return recipe;
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.shanebeestudios.api.recipe;
+
+import com.shanebeestudios.api.property.FurnaceProperties;
+
+/**
+ * Group of {@link FurnaceRecipe FurnaceRecipes} a furnace can cook
+ * <p>Each {@link FurnaceProperties} type declares which recipe books it uses,
+ * a furnace only resolves recipes from those books.</p>
+ */
+public enum RecipeBook {
+
+    /**
+     * Recipes of a vanilla Minecraft furnace, custom recipes are added here by default
+     */
+    FURNACE,
+    /**
+     * Recipes of a vanilla Minecraft smoker
+     */
+    SMOKING,
+    /**
+     * Recipes of a vanilla Minecraft blast furnace
+     */
+    BLASTING
+
+}
@@ -0,0 +1,185 @@
+package com.shanebeestudios.api.recipe;
+
+import com.shanebeestudios.api.VirtualFurnaceAPI;
+import com.shanebeestudios.api.util.Util;
+import org.bukkit.*;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Vanilla furnace, smoking and blasting recipes of the running server
+ * <p>Building recipes from the server's recipes is slow, so the resulting recipes are cached in the plugin's data folder.
+ * The cache is reused for as long as the server version and the server's cooking recipes stay the same.</p>
+ * <p>The server's recipes are read on the main thread, only the cache file is read in the background.
+ * The server does not guard its recipes against other threads, so every start still walks them once
+ * to check the fingerprint of the cache. A warm start only skips building the recipes from them.</p>
+ */
+final class VanillaFurnaceRecipes {
+
+    private static final String CACHE_FILE = "vanilla-recipes.yml";
+
+    final List<FurnaceRecipe> furnace = new ArrayList<>();
+    final List<FurnaceRecipe> smoking = new ArrayList<>();
+    final List<FurnaceRecipe> blasting = new ArrayList<>();
+
+    private VanillaFurnaceRecipes() {
+    }
+
+    /**
+     * Load the vanilla recipes, from the cache if it was written for the same server recipes
+     * <p>Must be called on the main thread</p>
+     *
+     * @return Vanilla recipes
+     */
+    static VanillaFurnaceRecipes load() {
+        long start = System.nanoTime();
+        VirtualFurnaceAPI api = VirtualFurnaceAPI.getInstance();
+        File cacheFile = api != null ? new File(api.getJavaPlugin().getDataFolder(), CACHE_FILE) : null;
+        // Read the cache file while the server's recipes are collected
+        CompletableFuture<YamlConfiguration> cache = cacheFile != null && cacheFile.exists() ?
+                CompletableFuture.supplyAsync(() -> YamlConfiguration.loadConfiguration(cacheFile)) : CompletableFuture.completedFuture(null);
+
+        List<org.bukkit.inventory.Recipe> serverRecipes = new ArrayList<>();
+        String fingerprint = collect(serverRecipes);
+        VanillaFurnaceRecipes recipes = readCache(cache.join(), fingerprint);
+        boolean cached = recipes != null;
+        if (!cached) {
+            recipes = convert(serverRecipes);
+            if (cacheFile != null) {
+                writeCache(cacheFile, fingerprint, recipes);
+            }
+        }
+        if (api != null && !api.isSilentStart()) {
+            int count = recipes.furnace.size() + recipes.smoking.size() + recipes.blasting.size();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            Util.log("Loaded &b" + count + " &7vanilla furnace recipes " + (cached ? "from cache" : "from server") + " in &b" + millis + "ms");
+        }
+        return recipes;
+    }
+
+    // Collect the server's cooking recipes, returns the fingerprint they are cached by.
+    // The fingerprint holds the server version, the amount of recipes and a hash of everything the cache keeps of them,
+    // summed so the order the server lists recipes in does not matter.
+    private static String collect(List<org.bukkit.inventory.Recipe> serverRecipes) {
+        boolean hasSmoking = Util.isRunningMinecraft(1, 14);
+        int hash = 0;
+        Iterator<org.bukkit.inventory.Recipe> iterator = Bukkit.recipeIterator();
+        while (iterator.hasNext()) {
+            org.bukkit.inventory.Recipe recipe = iterator.next();
+            if (recipe instanceof org.bukkit.inventory.FurnaceRecipe
+                    || (hasSmoking && (recipe instanceof SmokingRecipe || recipe instanceof BlastingRecipe))) {
+                serverRecipes.add(recipe);
+                hash += hash(recipe);
+            }
+        }
+        return Bukkit.getVersion() + ";" + serverRecipes.size() + ";" + Integer.toHexString(hash);
+    }
+
+    // Furnace recipes only share a cooking recipe type from 1.14 on
+    private static int hash(org.bukkit.inventory.Recipe recipe) {
+        if (recipe instanceof org.bukkit.inventory.FurnaceRecipe r) {
+            return hash(r.getKey(), r.getInput(), r.getResult(), r.getCookingTime(), r.getExperience());
+        } else if (recipe instanceof SmokingRecipe r) {
+            return hash(r.getKey(), r.getInput(), r.getResult(), r.getCookingTime(), r.getExperience());
+        }
+        BlastingRecipe r = (BlastingRecipe) recipe;
+        return hash(r.getKey(), r.getInput(), r.getResult(), r.getCookingTime(), r.getExperience());
+    }
+
+    private static int hash(NamespacedKey key, ItemStack input, ItemStack result, int cookingTime, float experience) {
+        return (key + ";" + input.getType() + ";" + result.getType() + ";" + cookingTime + ";" + experience).hashCode();
+    }
+
+    private static VanillaFurnaceRecipes convert(List<org.bukkit.inventory.Recipe> serverRecipes) {
+        VanillaFurnaceRecipes recipes = new VanillaFurnaceRecipes();
+
+        List<Material> logTypes = new ArrayList<>();
+        for (Material material : Material.values()) {
+            if (material.name().contains("_LOG") || material.name().contains("_WOOD")) {
+                logTypes.add(material);
+            }
+        }
+
+        serverRecipes.forEach(recipe -> {
+            if (recipe instanceof org.bukkit.inventory.FurnaceRecipe) {
+                org.bukkit.inventory.FurnaceRecipe r = ((org.bukkit.inventory.FurnaceRecipe) recipe);
+                FurnaceRecipe rec = new FurnaceRecipe(Util.getKey("mc_furnace_" + r.getKey().getKey()), r.getInput().getType(), r.getResult().getType(), r.getCookingTime(), r.getExperience());
+                if (r.getResult().getType() == Material.CHARCOAL) {
+
+                    logTypes.forEach((mat) -> {
+                        FurnaceRecipe charCoal = new FurnaceRecipe(Util.getKey("mc_furnace_charcoal_" + mat.name().toLowerCase()), mat, Material.CHARCOAL, r.getCookingTime(), r.getExperience());
+                        recipes.furnace.add(charCoal);
+                    });
+
+                } else
+                    recipes.furnace.add(rec);
+            } else if (recipe instanceof SmokingRecipe) {
+                SmokingRecipe r = ((SmokingRecipe) recipe);
+                FurnaceRecipe rec = new FurnaceRecipe(Util.getKey("mc_smoking_" + r.getKey().getKey()), r.getInput().getType(), r.getResult().getType(), r.getCookingTime(), r.getExperience());
+                recipes.smoking.add(rec);
+            } else if (recipe instanceof BlastingRecipe) {
+                BlastingRecipe r = ((BlastingRecipe) recipe);
+                FurnaceRecipe rec = new FurnaceRecipe(Util.getKey("mc_blasting_" + r.getKey().getKey()), r.getInput().getType(), r.getResult().getType(), r.getCookingTime(), r.getExperience());
+                recipes.blasting.add(rec);
+            }
+        });
+        return recipes;
+    }
+
+    // Returns null if there is no usable cache for these server recipes
+    private static VanillaFurnaceRecipes readCache(YamlConfiguration config, String fingerprint) {
+        if (config == null || !fingerprint.equals(config.getString("fingerprint"))) return null;
+        VanillaFurnaceRecipes recipes = new VanillaFurnaceRecipes();
+        if (readRecipes(config.getStringList("furnace"), recipes.furnace)
+                && readRecipes(config.getStringList("smoking"), recipes.smoking)
+                && readRecipes(config.getStringList("blasting"), recipes.blasting)) {
+            return recipes;
+        }
+        return null;
+    }
+
+    // Each recipe is stored as "key;ingredient;result;cookTime;experience"
+    private static boolean readRecipes(List<String> lines, List<FurnaceRecipe> recipes) {
+        for (String line : lines) {
+            String[] split = line.split(";");
+            if (split.length != 5) return false;
+            Material ingredient = Material.getMaterial(split[1]);
+            Material result = Material.getMaterial(split[2]);
+            if (ingredient == null || result == null) return false;
+            try {
+                recipes.add(new FurnaceRecipe(Util.getKey(split[0]), ingredient, result, Integer.parseInt(split[3]), Float.parseFloat(split[4])));
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeCache(File file, String fingerprint, VanillaFurnaceRecipes recipes) {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("fingerprint", fingerprint);
+        config.set("furnace", writeRecipes(recipes.furnace));
+        config.set("smoking", writeRecipes(recipes.smoking));
+        config.set("blasting", writeRecipes(recipes.blasting));
+        try {
+            config.save(file);
+        } catch (IOException ex) {
+            Util.error("Could not save vanilla recipe cache: " + ex.getMessage());
+        }
+    }
+
+    private static List<String> writeRecipes(List<FurnaceRecipe> recipes) {
+        List<String> lines = new ArrayList<>(recipes.size());
+        for (FurnaceRecipe recipe : recipes) {
+            lines.add(recipe.getKey().getKey() + ";" + recipe.getIngredient().name() + ";" + recipe.getResult().name()
+                    + ";" + recipe.getCookTime() + ";" + recipe.getExperience());
+        }
+        return lines;
+    }
+
+}
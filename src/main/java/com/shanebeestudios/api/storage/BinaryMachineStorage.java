@@ -0,0 +1,99 @@
+package com.shanebeestudios.api.storage;
+
+import com.shanebeestudios.api.machine.Machine;
+import org.bukkit.configuration.serialization.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Stores machines in a binary file using a {@link MachineCodec}
+ * <p>Snapshots are kept by the writer thread, each write streams all of them into a new file,
+ * together with the {@link #release(UUID) released} machines.</p>
+ *
+ * @param <M> Type of machine
+ */
+public final class BinaryMachineStorage<M extends Machine & ConfigurationSerializable> extends FileMachineStorage<M> {
+
+    private final MachineCodec codec;
+    private final Class<M> type;
+    private final Map<UUID, Map<String, Object>> snapshots = new LinkedHashMap<>();
+
+    /**
+     * Create a new binary storage
+     *
+     * @param file  File to store machines in
+     * @param codec Codec for the type of machine
+     * @param type  Type of machine
+     */
+    public BinaryMachineStorage(@NotNull File file, @NotNull MachineCodec codec, @NotNull Class<M> type) {
+        super(file);
+        this.codec = codec;
+        this.type = type;
+    }
+
+    @Override
+    void loadOnWriter(Consumer<M> consumer) {
+        if (!this.file.exists()) return;
+        try (MachineCodec.Reader reader = MachineCodec.reader(new BufferedInputStream(new FileInputStream(this.file), 1 << 16))) {
+            Map<String, Object> snapshot;
+            while ((snapshot = reader.read()) != null) {
+                Object value = ConfigurationSerialization.deserializeObject(snapshot);
+                if (!this.type.isInstance(value)) continue;
+                M machine = this.type.cast(value);
+                consumer.accept(machine);
+                // The machine may have changed while loading, and shares its items with the record
+                this.snapshots.put(machine.getUniqueID(), MachineStorage.snapshot(machine));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void save(@NotNull M machine) {
+        Map<String, Object> snapshot = MachineStorage.snapshot(machine);
+        UUID uuid = machine.getUniqueID();
+        execute(() -> this.snapshots.put(uuid, snapshot));
+    }
+
+    @Override
+    public void remove(@NotNull UUID uuid) {
+        execute(() -> this.snapshots.remove(uuid));
+    }
+
+    @Override
+    public void release(@NotNull UUID uuid) {
+        execute(() -> this.snapshots.remove(uuid));
+    }
+
+    @Override
+    public void restore(@NotNull UUID uuid, @NotNull Map<String, Object> snapshot) {
+        execute(() -> this.snapshots.put(uuid, snapshot));
+    }
+
+    @Override
+    public void write() {
+        executeWithReleased(released -> {
+            try {
+                writeFile(out -> {
+                    MachineCodec.Writer writer = this.codec.writer(out);
+                    for (Map<String, Object> snapshot : this.snapshots.values()) {
+                        writer.write(snapshot);
+                    }
+                    for (Map<String, Object> snapshot : released) {
+                        if (!this.snapshots.containsKey(UUID.fromString(snapshot.get("uuid").toString()))) {
+                            writer.write(snapshot);
+                        }
+                    }
+                    writer.finish();
+                });
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        });
+    }
+
+}
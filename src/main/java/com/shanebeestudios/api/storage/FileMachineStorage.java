@@ -0,0 +1,141 @@
+package com.shanebeestudios.api.storage;
+
+import com.shanebeestudios.api.machine.Machine;
+import com.shanebeestudios.api.util.Util;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Base of storages which keep their machines in a single file
+ * <p>Everything a storage does with its snapshots and file runs on its own writer thread,
+ * in the order it was queued. The file is written to a temporary file first, which then replaces
+ * the file in one step, a crash while writing leaves the previous file intact.</p>
+ *
+ * @param <M> Type of machine
+ */
+abstract class FileMachineStorage<M extends Machine & ConfigurationSerializable> implements MachineStorage<M> {
+
+    final File file;
+    private final ExecutorService executor;
+    private volatile ReleasedMachines released = ReleasedMachines.NONE;
+
+    FileMachineStorage(File file) {
+        this.file = file;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VirtualFurnace-Writer-" + file.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Run a task on the writer thread, after everything queued before
+    void execute(Runnable task) {
+        this.executor.execute(task);
+    }
+
+    @Override
+    public void setReleasedMachines(@NotNull ReleasedMachines released) {
+        this.released = released;
+    }
+
+    // Take snapshots of all released machines, and queue a task using them in the same order as releases
+    void executeWithReleased(Consumer<List<Map<String, Object>>> task) {
+        this.released.collect(uuid -> true, released -> execute(() -> task.accept(released)));
+    }
+
+    @Override
+    public void load(@NotNull Consumer<M> consumer) {
+        await(loadAsync(consumer));
+    }
+
+    // Load on the writer thread without waiting for it
+    Future<?> loadAsync(Consumer<M> consumer) {
+        return this.executor.submit(() -> loadOnWriter(consumer));
+    }
+
+    /**
+     * Load all stored machines
+     * <p>Only called on the writer thread</p>
+     *
+     * @param consumer Consumer of each machine
+     */
+    abstract void loadOnWriter(Consumer<M> consumer);
+
+    // Wait for a load to finish
+    void await(Future<?> load) {
+        try {
+            load.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Failed to load " + this.file.getName(), ex.getCause());
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            this.executor.submit(() -> {
+            }).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignore) {
+        }
+    }
+
+    /**
+     * Replace the file with new contents
+     * <p>Only called on the writer thread</p>
+     *
+     * @param contents Writes the new contents
+     * @throws IOException When the file could not be written, the previous file is kept
+     */
+    void writeFile(Contents contents) throws IOException {
+        writeFile(this.file, contents);
+    }
+
+    // Write to a temporary file which replaces the file once it is complete
+    static void writeFile(File file, Contents contents) throws IOException {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+            BufferedOutputStream out = new BufferedOutputStream(stream, 1 << 16);
+            contents.write(out);
+            out.flush();
+            stream.getChannel().force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                Util.error("Timed out writing " + this.file.getName());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void delete() {
+        this.file.delete();
+    }
+
+    interface Contents {
+        void write(OutputStream out) throws IOException;
+    }
+
+}
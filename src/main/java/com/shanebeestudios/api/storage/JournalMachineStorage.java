@@ -0,0 +1,351 @@
+package com.shanebeestudios.api.storage;
+
+import com.shanebeestudios.api.machine.Machine;
+import com.shanebeestudios.api.util.Util;
+import org.bukkit.configuration.serialization.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Stores machines in a snapshot file and a journal of the changes made since
+ * <p>Saves and removals are appended to the journal instead of rewriting the whole file.
+ * {@link #write() Writes} only commit the journal to disk, writes queued while a commit
+ * is waiting are committed together. Once the journal grows past its threshold it is compacted
+ * into a new snapshot on the writer thread, together with the {@link #release(UUID) released} machines.</p>
+ * <p>On load the snapshot is read and the journal replayed on top of it. Both files use the format
+ * of a {@link MachineCodec}, in the journal each entry is framed with its length and a checksum.
+ * Replaying stops at the first entry which is incomplete, does not match its checksum or cannot be read,
+ * the journal is cut back to the last complete entry before it.</p>
+ *
+ * @param <M> Type of machine
+ */
+public final class JournalMachineStorage<M extends Machine & ConfigurationSerializable> extends FileMachineStorage<M> {
+
+    /**
+     * Size in bytes the journal is compacted at by default
+     */
+    public static final long DEFAULT_COMPACTION_SIZE = 4L << 20;
+    // Larger frames can only come from a damaged length
+    private static final int MAX_FRAME_SIZE = 64 << 20;
+
+    private final MachineCodec codec;
+    private final Class<M> type;
+    private final File journalFile;
+    private final long compactionSize;
+    private final Map<UUID, Map<String, Object>> snapshots = new LinkedHashMap<>();
+    private final AtomicBoolean commitQueued = new AtomicBoolean();
+    // Size of the journal as of the last commit
+    private volatile long journalSize;
+
+    // Only used on the writer thread
+    private FileOutputStream journalStream;
+    private DataOutputStream journalOut;
+    // Each entry is written here first, then framed into the journal
+    private final ByteArrayOutputStream entry = new ByteArrayOutputStream();
+    private MachineCodec.Writer journal;
+    private int journalEntries;
+
+    /**
+     * Create a new journal storage
+     *
+     * @param file           Snapshot file to store machines in, the journal is kept next to it
+     * @param codec          Codec for the type of machine
+     * @param type           Type of machine
+     * @param compactionSize Size in bytes the journal is compacted at
+     */
+    public JournalMachineStorage(@NotNull File file, @NotNull MachineCodec codec, @NotNull Class<M> type, long compactionSize) {
+        super(file);
+        this.codec = codec;
+        this.type = type;
+        this.journalFile = new File(file.getParentFile(), file.getName() + ".journal");
+        this.compactionSize = compactionSize;
+    }
+
+    @Override
+    void loadOnWriter(Consumer<M> consumer) {
+        try {
+            if (this.file.exists()) {
+                try (MachineCodec.Reader reader = MachineCodec.reader(new BufferedInputStream(new FileInputStream(this.file), 1 << 16))) {
+                    Map<String, Object> snapshot;
+                    while ((snapshot = reader.read()) != null) {
+                        this.snapshots.put(UUID.fromString(snapshot.get("uuid").toString()), snapshot);
+                    }
+                }
+            }
+            // Start from a fresh snapshot, so the journal only ever holds changes of one session
+            // Nothing is released yet while loading
+            if (replayJournal() > 0) {
+                writeSnapshot(Collections.emptyList());
+            }
+            startJournal();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        for (Map.Entry<UUID, Map<String, Object>> entry : this.snapshots.entrySet()) {
+            Object value = ConfigurationSerialization.deserializeObject(entry.getValue());
+            if (!this.type.isInstance(value)) continue;
+            M machine = this.type.cast(value);
+            consumer.accept(machine);
+            // The machine may have changed while loading, and shares its items with the record
+            entry.setValue(MachineStorage.snapshot(machine));
+        }
+    }
+
+    // Apply the journal to the snapshots, returns the amount of entries replayed
+    private int replayJournal() throws IOException {
+        if (!this.journalFile.exists()) return 0;
+        int[] entries = new int[1];
+        FrameInputStream frames = new FrameInputStream(new BufferedInputStream(new FileInputStream(this.journalFile), 1 << 16));
+        try (MachineCodec.Reader reader = MachineCodec.reader(frames)) {
+            Map<String, Object> snapshot;
+            while ((snapshot = reader.read(uuid -> {
+                this.snapshots.remove(uuid);
+                entries[0]++;
+            })) != null) {
+                this.snapshots.put(UUID.fromString(snapshot.get("uuid").toString()), snapshot);
+                entries[0]++;
+            }
+        } catch (IOException ex) {
+            // The journal has no end, it stops at the last entry or where writing was interrupted.
+            // Anything from the entry that failed on is dropped, so the journal never replays past a damaged entry.
+            long complete = frames.frameStart;
+            if (!(ex instanceof EOFException) || frames.damaged) {
+                Util.error("Dropped damaged entries at the end of " + this.journalFile.getName() + ": " + ex.getMessage());
+            }
+            try (RandomAccessFile file = new RandomAccessFile(this.journalFile, "rw")) {
+                if (file.length() > complete) {
+                    file.setLength(complete);
+                }
+            }
+        }
+        return entries[0];
+    }
+
+    @Override
+    public void save(@NotNull M machine) {
+        Map<String, Object> snapshot = MachineStorage.snapshot(machine);
+        UUID uuid = machine.getUniqueID();
+        execute(() -> {
+            this.snapshots.put(uuid, snapshot);
+            append(journal -> journal.write(snapshot));
+        });
+    }
+
+    @Override
+    public void remove(@NotNull UUID uuid) {
+        execute(() -> {
+            this.snapshots.remove(uuid);
+            append(journal -> journal.remove(uuid));
+        });
+    }
+
+    private void append(Entry entry) {
+        try {
+            entry.write(this.journal);
+            writeFrame();
+            this.journalEntries++;
+        } catch (IOException ex) {
+            this.entry.reset();
+            ex.printStackTrace();
+        }
+    }
+
+    // Frame the entry written so far with its length and checksum
+    private void writeFrame() throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(this.entry.toByteArray());
+        this.journalOut.writeInt(this.entry.size());
+        this.journalOut.writeInt((int) crc.getValue());
+        this.entry.writeTo(this.journalOut);
+        this.entry.reset();
+    }
+
+    @Override
+    public void release(@NotNull UUID uuid) {
+        // The machine stays in the snapshot file and journal, a compaction writes it from the released machines
+        execute(() -> this.snapshots.remove(uuid));
+    }
+
+    @Override
+    public void restore(@NotNull UUID uuid, @NotNull Map<String, Object> snapshot) {
+        // The machine may have been released by another storage, so the journal may not hold it yet
+        execute(() -> {
+            this.snapshots.put(uuid, snapshot);
+            append(journal -> journal.write(snapshot));
+        });
+    }
+
+    @Override
+    public void write() {
+        // Changes made while a commit is waiting are committed together
+        if (!this.commitQueued.compareAndSet(false, true)) return;
+        if (this.journalSize >= this.compactionSize) {
+            executeWithReleased(this::commit);
+        } else {
+            execute(() -> commit(null));
+        }
+    }
+
+    // Released machines are only given when the journal is due to be compacted
+    private void commit(List<Map<String, Object>> released) {
+        this.commitQueued.set(false);
+        try {
+            this.journalOut.flush();
+            this.journalStream.getChannel().force(false);
+            this.journalSize = this.journalStream.getChannel().size();
+            if (released != null) {
+                compact(released);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    // Replace the snapshot, then start a new journal
+    // If this is interrupted in between, replaying the old journal on the new snapshot ends up at the same machines
+    private void compact(List<Map<String, Object>> released) throws IOException {
+        writeSnapshot(released);
+        startJournal();
+    }
+
+    private void writeSnapshot(List<Map<String, Object>> released) throws IOException {
+        writeFile(out -> {
+            MachineCodec.Writer writer = this.codec.writer(out);
+            for (Map<String, Object> snapshot : this.snapshots.values()) {
+                writer.write(snapshot);
+            }
+            for (Map<String, Object> snapshot : released) {
+                if (!this.snapshots.containsKey(UUID.fromString(snapshot.get("uuid").toString()))) {
+                    writer.write(snapshot);
+                }
+            }
+            writer.finish();
+        });
+    }
+
+    private void startJournal() throws IOException {
+        closeJournal();
+        this.journalStream = new FileOutputStream(this.journalFile);
+        this.journalOut = new DataOutputStream(new BufferedOutputStream(this.journalStream, 1 << 16));
+        // The header is the first frame
+        this.entry.reset();
+        this.journal = this.codec.writer(this.entry);
+        writeFrame();
+        this.journalOut.flush();
+        this.journalStream.getChannel().force(true);
+        this.journalSize = this.journalStream.getChannel().size();
+        this.journalEntries = 0;
+    }
+
+    private void closeJournal() throws IOException {
+        if (this.journalStream == null) return;
+        this.journalOut.flush();
+        this.journalStream.getChannel().force(false);
+        this.journalStream.close();
+        this.journalStream = null;
+    }
+
+    @Override
+    public void shutdown() {
+        // Leave a compacted snapshot behind, the journal is empty until the next change
+        executeWithReleased(released -> {
+            try {
+                if (this.journalEntries > 0) {
+                    compact(released);
+                }
+                closeJournal();
+            } catch (IOException ex) {
+                Util.error("Failed to compact " + this.journalFile.getName());
+                ex.printStackTrace();
+            }
+        });
+        super.shutdown();
+    }
+
+    @Override
+    public void delete() {
+        super.delete();
+        this.journalFile.delete();
+    }
+
+    private interface Entry {
+        void write(MachineCodec.Writer journal) throws IOException;
+    }
+
+    // Reads the entries of the journal from their frames, ending before the first frame which is incomplete or damaged
+    private static final class FrameInputStream extends InputStream {
+
+        private final DataInputStream in;
+        private byte[] frame = new byte[0];
+        private int position;
+        // Offset in the file of the frame currently read, all frames before it are complete
+        private long frameStart;
+        private long frameEnd;
+        private boolean ended;
+        private boolean damaged;
+
+        private FrameInputStream(InputStream in) {
+            this.in = new DataInputStream(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextFrame()) return -1;
+            return this.frame[this.position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!nextFrame()) return -1;
+            int read = Math.min(length, this.frame.length - this.position);
+            System.arraycopy(this.frame, this.position, bytes, offset, read);
+            this.position += read;
+            return read;
+        }
+
+        private boolean nextFrame() throws IOException {
+            while (this.position == this.frame.length) {
+                if (this.ended) return false;
+                this.frameStart = this.frameEnd;
+                try {
+                    int length = this.in.readInt();
+                    int checksum = this.in.readInt();
+                    if (length < 0 || length > MAX_FRAME_SIZE) {
+                        this.damaged = true;
+                        this.ended = true;
+                        return false;
+                    }
+                    byte[] frame = new byte[length];
+                    this.in.readFully(frame);
+                    CRC32 crc = new CRC32();
+                    crc.update(frame);
+                    if ((int) crc.getValue() != checksum) {
+                        this.damaged = true;
+                        this.ended = true;
+                        return false;
+                    }
+                    this.frame = frame;
+                    this.position = 0;
+                    this.frameEnd += 8 + length;
+                } catch (EOFException ex) {
+                    this.ended = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+
+    }
+
+}
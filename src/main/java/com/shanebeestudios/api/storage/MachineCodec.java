@@ -0,0 +1,462 @@
+package com.shanebeestudios.api.storage;
+
+import org.bukkit.configuration.serialization.*;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.*;
+import org.jetbrains.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Versioned binary format for machine snapshots
+ * <p>A file starts with a header naming the type of machine it holds, followed by a stream of entries.
+ * Records keep UUIDs as two longs and numbers as varints. Items and properties are added to a dictionary
+ * the first time a record uses them, records only refer to them. Item amounts are kept in the record,
+ * so each distinct item is stored once per file.</p>
+ * <p>Files are written and read one record at a time, neither side has to hold the whole file.
+ * Journals also hold removals, which name the ID of a machine which was removed.</p>
+ */
+@SuppressWarnings("unused")
+public final class MachineCodec {
+
+    /**
+     * First bytes of every file
+     */
+    public static final int MAGIC = 0x56464D53;
+    /**
+     * Version of the format written, files of this version or older can be read
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int END = 0;
+    private static final int DICTIONARY = 1;
+    private static final int RECORD = 2;
+    private static final int REMOVAL = 3;
+
+    private static final Map<String, MachineCodec> CODECS = new HashMap<>();
+
+    /**
+     * Codec for {@link com.shanebeestudios.api.machine.Furnace Furnaces}
+     */
+    public static final MachineCodec FURNACE = register("furnace",
+            field("uuid", FieldType.UUID), field("name", FieldType.STRING), field("properties", FieldType.OBJECT),
+            field("cookTime", FieldType.INT), field("fuelTime", FieldType.INT), field("xp", FieldType.FLOAT),
+            field("fuel", FieldType.ITEM), field("input", FieldType.ITEM), field("output", FieldType.ITEM),
+            field("lastTicked", FieldType.LONG));
+    /**
+     * Codec for {@link com.shanebeestudios.api.machine.BrewingStand BrewingStands}
+     */
+    public static final MachineCodec BREWING_STAND = register("brewing_stand",
+            field("uuid", FieldType.UUID), field("name", FieldType.STRING), field("properties", FieldType.OBJECT),
+            field("brewTime", FieldType.INT), field("fuelTime", FieldType.INT), field("maxBrews", FieldType.INT),
+            field("fuel", FieldType.ITEM), field("ingredient", FieldType.ITEM),
+            field("bottle-1", FieldType.ITEM), field("bottle-2", FieldType.ITEM), field("bottle-3", FieldType.ITEM),
+            field("lastTicked", FieldType.LONG));
+    /**
+     * Codec for {@link com.shanebeestudios.api.tile.FurnaceTile FurnaceTiles}, the furnace is stored in the record
+     */
+    public static final MachineCodec FURNACE_TILE = register("tile",
+            field("machine", FieldType.FURNACE), field("x", FieldType.INT), field("y", FieldType.INT),
+            field("z", FieldType.INT), field("world", FieldType.STRING));
+
+    private final String alias;
+    private final Field[] fields;
+
+    private MachineCodec(String alias, Field[] fields) {
+        this.alias = alias;
+        this.fields = fields;
+    }
+
+    /**
+     * Get the codec for a type of machine
+     *
+     * @param alias {@link ConfigurationSerialization#getAlias(Class) Alias} of machine
+     * @return Codec for machine, or null if the machine can not be stored in this format
+     */
+    public static @Nullable MachineCodec forAlias(@NotNull String alias) {
+        return CODECS.get(alias);
+    }
+
+    /**
+     * Get the alias of the type of machine this codec stores
+     *
+     * @return Alias of machine
+     */
+    public String getAlias() {
+        return this.alias;
+    }
+
+    /**
+     * Start writing a file for this type of machine
+     *
+     * @param out Stream to write to
+     * @return Writer for records
+     * @throws IOException When the header could not be written
+     */
+    public Writer writer(@NotNull OutputStream out) throws IOException {
+        return new Writer(this, out);
+    }
+
+    /**
+     * Start reading a file
+     *
+     * @param in Stream to read from
+     * @return Reader for records, using the codec named in the header
+     * @throws IOException When the header is not valid or the format version is not supported
+     */
+    public static Reader reader(@NotNull InputStream in) throws IOException {
+        return new Reader(in);
+    }
+
+    /**
+     * Writes records to a stream
+     */
+    public static final class Writer {
+
+        private final MachineCodec codec;
+        private final DataOutputStream out;
+        // Dictionary entries by their item with an amount of 1, or object
+        private final Map<Object, Integer> dictionary = new HashMap<>();
+        private int count;
+
+        private Writer(MachineCodec codec, OutputStream out) throws IOException {
+            this.codec = codec;
+            this.out = new DataOutputStream(out);
+            this.out.writeInt(MAGIC);
+            writeVarInt(this.out, FORMAT_VERSION);
+            writeString(this.out, codec.alias);
+        }
+
+        /**
+         * Write a record
+         *
+         * @param snapshot {@link MachineStorage#snapshot Snapshot} of machine
+         * @throws IOException When writing fails
+         */
+        public void write(@NotNull Map<String, Object> snapshot) throws IOException {
+            // Dictionary entries go before the first record using them
+            addToDictionary(this.codec, snapshot);
+            this.out.writeByte(RECORD);
+            writeFields(this.codec, snapshot);
+            this.count++;
+        }
+
+        /**
+         * Write the removal of a machine
+         * <p>Only journals hold removals</p>
+         *
+         * @param uuid ID of machine
+         * @throws IOException When writing fails
+         */
+        public void remove(@NotNull UUID uuid) throws IOException {
+            this.out.writeByte(REMOVAL);
+            this.out.writeLong(uuid.getMostSignificantBits());
+            this.out.writeLong(uuid.getLeastSignificantBits());
+        }
+
+        /**
+         * Get the amount of records written
+         *
+         * @return Amount of records
+         */
+        public int getCount() {
+            return this.count;
+        }
+
+        private void addToDictionary(MachineCodec codec, Map<String, Object> snapshot) throws IOException {
+            for (Field field : codec.fields) {
+                Object value = snapshot.get(field.key);
+                if (value == null) continue;
+                switch (field.type) {
+                    case ITEM -> {
+                        ItemStack item = ((ItemStack) value).clone();
+                        item.setAmount(1);
+                        addToDictionary(item);
+                    }
+                    case OBJECT -> addToDictionary(value);
+                    case FURNACE -> addToDictionary(FURNACE, nested(value));
+                }
+            }
+        }
+
+        private void addToDictionary(Object value) throws IOException {
+            if (this.dictionary.containsKey(value)) return;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (BukkitObjectOutputStream objects = new BukkitObjectOutputStream(bytes)) {
+                objects.writeObject(value);
+            }
+            this.out.writeByte(DICTIONARY);
+            writeVarInt(this.out, bytes.size());
+            bytes.writeTo(this.out);
+            this.dictionary.put(value, this.dictionary.size());
+        }
+
+        private void writeFields(MachineCodec codec, Map<String, Object> snapshot) throws IOException {
+            DataOutputStream out = this.out;
+            for (Field field : codec.fields) {
+                Object value = snapshot.get(field.key);
+                switch (field.type) {
+                    case UUID -> {
+                        UUID uuid = UUID.fromString(value.toString());
+                        out.writeLong(uuid.getMostSignificantBits());
+                        out.writeLong(uuid.getLeastSignificantBits());
+                    }
+                    case STRING -> writeString(out, value != null ? value.toString() : null);
+                    case INT -> writeVarInt(out, zigZag(value != null ? ((Number) value).intValue() : 0));
+                    case LONG -> writeVarLong(out, zigZag(value != null ? ((Number) value).longValue() : 0));
+                    case FLOAT -> out.writeFloat(value != null ? ((Number) value).floatValue() : 0);
+                    case ITEM -> {
+                        if (value == null) {
+                            writeVarInt(out, 0);
+                        } else {
+                            ItemStack item = ((ItemStack) value).clone();
+                            int amount = item.getAmount();
+                            item.setAmount(1);
+                            writeVarInt(out, this.dictionary.get(item) + 1);
+                            writeVarInt(out, amount);
+                        }
+                    }
+                    case OBJECT -> writeVarInt(out, value != null ? this.dictionary.get(value) + 1 : 0);
+                    case FURNACE -> writeFields(FURNACE, nested(value));
+                }
+            }
+        }
+
+        // Nested machines are stored from their snapshot
+        @SuppressWarnings("unchecked")
+        private static Map<String, Object> nested(Object value) {
+            return value instanceof ConfigurationSerializable serializable ? serializable.serialize() : (Map<String, Object>) value;
+        }
+
+        /**
+         * Mark the end of the file, the stream is flushed but left open
+         *
+         * @throws IOException When writing fails
+         */
+        public void finish() throws IOException {
+            this.out.writeByte(END);
+            this.out.flush();
+        }
+
+    }
+
+    /**
+     * Reads records from a stream
+     */
+    public static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final MachineCodec codec;
+        private final List<Object> dictionary = new ArrayList<>();
+        private boolean ended;
+
+        private Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            if (this.in.readInt() != MAGIC) {
+                throw new IOException("Not a machine file");
+            }
+            int version = readVarInt(this.in);
+            if (version > FORMAT_VERSION) {
+                throw new IOException("Unsupported format version " + version);
+            }
+            String alias = readString(this.in);
+            this.codec = alias != null ? forAlias(alias) : null;
+            if (this.codec == null) {
+                throw new IOException("Unknown machine type " + alias);
+            }
+        }
+
+        /**
+         * Get the codec of the records in this file
+         *
+         * @return Codec of records
+         */
+        public MachineCodec getCodec() {
+            return this.codec;
+        }
+
+        /**
+         * Read the next record
+         *
+         * @return Snapshot of machine, or null at the end of the file
+         * @throws IOException When reading fails, or the file ends before its end was written
+         */
+        public @Nullable Map<String, Object> read() throws IOException {
+            return read(null);
+        }
+
+        /**
+         * Read the next record of a journal
+         *
+         * @param removals Consumer of removals read before the next record, null if the file may not hold removals
+         * @return Snapshot of machine, or null at the end of the file
+         * @throws IOException When reading fails, or the file ends before its end was written
+         */
+        public @Nullable Map<String, Object> read(@Nullable Consumer<UUID> removals) throws IOException {
+            while (!this.ended) {
+                int entry = this.in.readUnsignedByte();
+                switch (entry) {
+                    case END -> this.ended = true;
+                    case DICTIONARY -> {
+                        byte[] bytes = new byte[readVarInt(this.in)];
+                        this.in.readFully(bytes);
+                        try (BukkitObjectInputStream objects = new BukkitObjectInputStream(new ByteArrayInputStream(bytes))) {
+                            this.dictionary.add(objects.readObject());
+                        } catch (ClassNotFoundException ex) {
+                            throw new IOException(ex);
+                        }
+                    }
+                    case RECORD -> {
+                        return readFields(this.codec);
+                    }
+                    case REMOVAL -> {
+                        UUID uuid = new UUID(this.in.readLong(), this.in.readLong());
+                        if (removals == null) {
+                            throw new IOException("Unexpected removal of " + uuid);
+                        }
+                        removals.accept(uuid);
+                    }
+                    default -> throw new IOException("Unknown entry " + entry);
+                }
+            }
+            return null;
+        }
+
+        private Map<String, Object> readFields(MachineCodec codec) throws IOException {
+            DataInputStream in = this.in;
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, codec.alias);
+            for (Field field : codec.fields) {
+                Object value = switch (field.type) {
+                    case UUID -> new UUID(in.readLong(), in.readLong()).toString();
+                    case STRING -> readString(in);
+                    case INT -> unZigZag(readVarInt(in));
+                    case LONG -> unZigZag(readVarLong(in));
+                    case FLOAT -> in.readFloat();
+                    case ITEM -> {
+                        int ref = readVarInt(in);
+                        if (ref == 0) yield null;
+                        ItemStack item = ((ItemStack) this.dictionary.get(ref - 1)).clone();
+                        item.setAmount(readVarInt(in));
+                        yield item;
+                    }
+                    case OBJECT -> {
+                        int ref = readVarInt(in);
+                        yield ref == 0 ? null : this.dictionary.get(ref - 1);
+                    }
+                    case FURNACE -> ConfigurationSerialization.deserializeObject(readFields(FURNACE));
+                };
+                snapshot.put(field.key, value);
+            }
+            return snapshot;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+
+    }
+
+    private static MachineCodec register(String alias, Field... fields) {
+        MachineCodec codec = new MachineCodec(alias, fields);
+        CODECS.put(alias, codec);
+        return codec;
+    }
+
+    private static Field field(String key, FieldType type) {
+        return new Field(key, type);
+    }
+
+    private static final class Field {
+
+        private final String key;
+        private final FieldType type;
+
+        private Field(String key, FieldType type) {
+            this.key = key;
+            this.type = type;
+        }
+
+    }
+
+    private enum FieldType {
+        UUID, STRING, INT, LONG, FLOAT, ITEM, OBJECT, FURNACE
+    }
+
+    // Strings are written with their length + 1, 0 for null
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) return null;
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint too long");
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varlong too long");
+    }
+
+    // Zig zag encoding keeps small negative numbers small
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.shanebeestudios.api.storage;
+
+import com.shanebeestudios.api.machine.Machine;
+import org.bukkit.configuration.serialization.*;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Storage backend for {@link Machine Machines} of one type
+ * <p>Machines are stored as snapshots, taken on the thread saving them while no machine is being ticked.
+ * Backends keep the snapshots to themselves and write them to file on their own thread.</p>
+ * <p>All changes are applied in the order they were made.</p>
+ *
+ * @param <M> Type of machine
+ */
+public interface MachineStorage<M extends Machine & ConfigurationSerializable> {
+
+    /**
+     * Load all stored machines
+     * <p>Blocks until every machine is loaded. Stored machines which the consumer
+     * {@link #remove(UUID) removes} are no longer kept by this storage.</p>
+     *
+     * @param consumer Consumer of each machine
+     */
+    void load(@NotNull Consumer<M> consumer);
+
+    /**
+     * Store a machine, replacing the stored machine with the same ID
+     * <p>A snapshot is taken on the calling thread</p>
+     *
+     * @param machine Machine to store
+     */
+    void save(@NotNull M machine);
+
+    /**
+     * Remove a stored machine
+     *
+     * @param uuid ID of machine
+     */
+    void remove(@NotNull UUID uuid);
+
+    /**
+     * Stop keeping the snapshot of a stored machine, which is kept elsewhere while it does not change
+     * <p>The machine stays stored, its snapshot is taken from the {@link #setReleasedMachines(ReleasedMachines) released machines}
+     * whenever the file is written. {@link #save(Machine) Saving} the machine again keeps its snapshot again.</p>
+     *
+     * @param uuid ID of machine
+     */
+    void release(@NotNull UUID uuid);
+
+    /**
+     * Keep the snapshot of a {@link #release(UUID) released} machine again
+     * <p>Unlike {@link #save(Machine)}, the snapshot is taken elsewhere without holding the machine.
+     * This also adds machines released by another storage, such as when moving them between storages.</p>
+     *
+     * @param uuid     ID of machine
+     * @param snapshot Snapshot of machine, as {@link ReleasedMachines#collect(Predicate, Consumer) collected}
+     */
+    void restore(@NotNull UUID uuid, @NotNull Map<String, Object> snapshot);
+
+    /**
+     * Set where the snapshots of {@link #release(UUID) released} machines are taken from
+     * <p>Must be set before any machine is released</p>
+     *
+     * @param released Source of released machines
+     */
+    void setReleasedMachines(@NotNull ReleasedMachines released);
+
+    /**
+     * Write all stored machines to file, after all changes made before
+     */
+    void write();
+
+    /**
+     * Wait until all changes and writes made before are finished
+     */
+    void flush();
+
+    /**
+     * Finish all changes and writes, and stop the writer thread
+     */
+    void shutdown();
+
+    /**
+     * Delete the file of this storage
+     */
+    void delete();
+
+    /**
+     * Take a snapshot of a machine
+     * <p>Items are copied, the snapshot can be turned back into the machine
+     * using {@link ConfigurationSerialization#deserializeObject(Map)}</p>
+     *
+     * @param machine Machine to take snapshot of
+     * @param <M>     Type of machine
+     * @return Serialized machine
+     */
+    static <M extends Machine & ConfigurationSerializable> Map<String, Object> snapshot(@NotNull M machine) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(machine.getClass().asSubclass(ConfigurationSerializable.class)));
+        // Players changing the inventory sync while holding the machine
+        synchronized (machine) {
+            machine.serialize().forEach((key, value) -> snapshot.put(key, value instanceof ItemStack item ? item.clone() : value));
+        }
+        return snapshot;
+    }
+
+}
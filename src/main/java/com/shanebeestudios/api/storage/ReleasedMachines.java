@@ -0,0 +1,31 @@
+package com.shanebeestudios.api.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Source of the machines a storage {@link MachineStorage#release(UUID) released}
+ * <p>Released machines are kept elsewhere in a compact form, storages do not hold on to their snapshots.
+ * Snapshots are only taken when a storage writes its file, and dropped again after.</p>
+ */
+@FunctionalInterface
+public interface ReleasedMachines {
+
+    /**
+     * Source without any released machines
+     */
+    ReleasedMachines NONE = (filter, action) -> action.accept(Collections.emptyList());
+
+    /**
+     * Take snapshots of released machines
+     * <p>The action is called while no machine can be released or taken back,
+     * so a storage queues its write in the same order as those changes.</p>
+     *
+     * @param filter Filter for IDs of machines to take snapshots of
+     * @param action Receives the snapshots
+     */
+    void collect(@NotNull Predicate<UUID> filter, @NotNull Consumer<List<Map<String, Object>>> action);
+
+}
@@ -0,0 +1,237 @@
+package com.shanebeestudios.api.storage;
+
+import com.shanebeestudios.api.machine.Machine;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Spreads machines over a number of shard files by the hash of their ID
+ * <p>Each shard is a storage of its own, with its own file and writer thread. Shards are loaded in parallel,
+ * and a {@link #write() write} only rewrites the shards which changed since they were last written.
+ * A broken file only loses the machines of its shard.</p>
+ * <p>Shards are kept in a folder named after the amount of shards, to change the amount of shards
+ * the machines have to be moved with {@link #reshard(File, String, MachineStorage, MachineStorage, Consumer, Consumer)}.
+ * The amount of shards machines are stored in is recorded in a layout file next to the folder.</p>
+ *
+ * @param <M> Type of machine
+ */
+public final class ShardedMachineStorage<M extends Machine & ConfigurationSerializable> implements MachineStorage<M> {
+
+    private final File folder;
+    private final List<FileMachineStorage<M>> shards;
+    // Whether each shard changed since it was last written
+    private final AtomicBoolean[] changed;
+
+    /**
+     * Create a new sharded storage
+     *
+     * @param dataFolder  Folder the folder of shards is kept in
+     * @param name        Name of the files, without extension
+     * @param shardCount  Amount of shards
+     * @param storageType Format of the shards
+     * @param section     Section of YAML files holding the machines
+     * @param codec       Codec of the machines in binary files
+     * @param type        Type of machine
+     */
+    public ShardedMachineStorage(@NotNull File dataFolder, @NotNull String name, int shardCount, @NotNull StorageType storageType,
+                                 @NotNull String section, @NotNull MachineCodec codec, @NotNull Class<M> type) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1: " + shardCount);
+        }
+        this.folder = getFolder(dataFolder, name, shardCount);
+        this.folder.mkdirs();
+        this.shards = new ArrayList<>(shardCount);
+        this.changed = new AtomicBoolean[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            File file = new File(this.folder, name + "-" + i + "." + storageType.getExtension());
+            this.shards.add(storageType.createFile(file, section, codec, type));
+            this.changed[i] = new AtomicBoolean();
+        }
+    }
+
+    /**
+     * Get the folder shards are kept in
+     *
+     * @param dataFolder Folder the folder of shards is kept in
+     * @param name       Name of the files, without extension
+     * @param shardCount Amount of shards
+     * @return Folder of shards
+     */
+    public static File getFolder(@NotNull File dataFolder, @NotNull String name, int shardCount) {
+        return new File(dataFolder, name + "-" + shardCount);
+    }
+
+    /**
+     * Find the amount of shards machines are currently stored in
+     * <p>This is read from the layout file, which is only replaced once all machines were moved by a reshard.
+     * Folders of shards left behind by an interrupted reshard are never picked.</p>
+     *
+     * @param dataFolder Folder the folder of shards is kept in
+     * @param name       Name of the files, without extension
+     * @return Amount of shards, 0 if machines are stored in one file
+     */
+    public static int findShardCount(@NotNull File dataFolder, @NotNull String name) {
+        File layoutFile = getLayoutFile(dataFolder, name);
+        if (layoutFile.exists()) {
+            try {
+                return Integer.parseInt(Files.readString(layoutFile.toPath(), StandardCharsets.UTF_8).trim());
+            } catch (IOException | NumberFormatException ex) {
+                throw new IllegalStateException("Failed to read " + layoutFile.getName(), ex);
+            }
+        }
+        // Shards stored before layout files were written, only a single folder of shards is unambiguous
+        File[] folders = dataFolder.listFiles(file -> file.isDirectory() && file.getName().matches(name + "-\\d+"));
+        if (folders == null || folders.length == 0) return 0;
+        if (folders.length > 1) {
+            throw new IllegalStateException("Found more than one folder of shards for " + name + " without " + layoutFile.getName());
+        }
+        return Integer.parseInt(folders[0].getName().substring(name.length() + 1));
+    }
+
+    private static File getLayoutFile(File dataFolder, String name) {
+        return new File(dataFolder, name + ".layout");
+    }
+
+    /**
+     * Move all machines to another storage, while the server is running
+     * <p>The new storage is swapped in before the machines are copied, so saves made meanwhile go to the new storage.
+     * The machines are written to the new storage before the layout file is replaced to point at it,
+     * only then the old storage is shut down and deleted.</p>
+     * <p>Must not run at the same time as saves which may not see the swap, such as those of the tick thread.</p>
+     *
+     * @param dataFolder Folder the storages are kept in
+     * @param name       Name of the files, without extension
+     * @param from       Storage machines are stored in now
+     * @param to         Storage to move machines to
+     * @param swap       Makes the given storage the one machines are saved to
+     * @param machines   Provides all machines stored by the old storage
+     * @param <M>        Type of machine
+     */
+    public static <M extends Machine & ConfigurationSerializable> void reshard(@NotNull File dataFolder, @NotNull String name,
+                                                                               @NotNull MachineStorage<M> from, @NotNull MachineStorage<M> to,
+                                                                               @NotNull Consumer<MachineStorage<M>> swap,
+                                                                               @NotNull Consumer<Consumer<M>> machines) {
+        // Start out empty, machines left behind by an interrupted reshard are removed
+        to.load(machine -> to.remove(machine.getUniqueID()));
+        swap.accept(to);
+        machines.accept(to::save);
+        to.write();
+        to.flush();
+        int shardCount = to instanceof ShardedMachineStorage<M> sharded ? sharded.getShardCount() : 0;
+        try {
+            byte[] layout = String.valueOf(shardCount).getBytes(StandardCharsets.UTF_8);
+            FileMachineStorage.writeFile(getLayoutFile(dataFolder, name), out -> out.write(layout));
+        } catch (IOException ex) {
+            // The old storage is still the one in use, it gets the saves made in the meantime
+            swap.accept(from);
+            machines.accept(from::save);
+            from.write();
+            to.shutdown();
+            throw new IllegalStateException("Failed to write " + getLayoutFile(dataFolder, name).getName(), ex);
+        }
+        from.shutdown();
+        from.delete();
+    }
+
+    /**
+     * Get the amount of shards
+     *
+     * @return Amount of shards
+     */
+    public int getShardCount() {
+        return this.shards.size();
+    }
+
+    private int shardOf(UUID uuid) {
+        return Math.floorMod(uuid.hashCode(), this.shards.size());
+    }
+
+    @Override
+    public void load(@NotNull Consumer<M> consumer) {
+        // Shards are read in parallel, the consumer is only called by one at a time
+        Consumer<M> locked = machine -> {
+            synchronized (consumer) {
+                consumer.accept(machine);
+            }
+        };
+        List<Future<?>> loads = new ArrayList<>(this.shards.size());
+        for (FileMachineStorage<M> shard : this.shards) {
+            loads.add(shard.loadAsync(locked));
+        }
+        for (int i = 0; i < loads.size(); i++) {
+            this.shards.get(i).await(loads.get(i));
+        }
+    }
+
+    @Override
+    public void save(@NotNull M machine) {
+        int shard = shardOf(machine.getUniqueID());
+        this.shards.get(shard).save(machine);
+        this.changed[shard].set(true);
+    }
+
+    @Override
+    public void remove(@NotNull UUID uuid) {
+        int shard = shardOf(uuid);
+        this.shards.get(shard).remove(uuid);
+        this.changed[shard].set(true);
+    }
+
+    @Override
+    public void release(@NotNull UUID uuid) {
+        // The file of the shard still holds the machine, it does not have to be written
+        this.shards.get(shardOf(uuid)).release(uuid);
+    }
+
+    @Override
+    public void restore(@NotNull UUID uuid, @NotNull Map<String, Object> snapshot) {
+        // The file of the shard may not hold the machine yet
+        int shard = shardOf(uuid);
+        this.shards.get(shard).restore(uuid, snapshot);
+        this.changed[shard].set(true);
+    }
+
+    @Override
+    public void setReleasedMachines(@NotNull ReleasedMachines released) {
+        // Each shard only writes its own released machines
+        for (int i = 0; i < this.shards.size(); i++) {
+            int shard = i;
+            this.shards.get(i).setReleasedMachines((filter, action) ->
+                    released.collect(uuid -> shardOf(uuid) == shard && filter.test(uuid), action));
+        }
+    }
+
+    @Override
+    public void write() {
+        for (int i = 0; i < this.shards.size(); i++) {
+            if (this.changed[i].getAndSet(false)) {
+                this.shards.get(i).write();
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        this.shards.forEach(MachineStorage::flush);
+    }
+
+    @Override
+    public void shutdown() {
+        this.shards.forEach(MachineStorage::shutdown);
+    }
+
+    @Override
+    public void delete() {
+        this.shards.forEach(MachineStorage::delete);
+        this.folder.delete();
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.shanebeestudios.api.storage;
+
+import com.shanebeestudios.api.machine.Machine;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.serialization.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Converts YAML machine files to the binary format of a {@link MachineCodec}
+ * <p>Records are encoded and written one at a time as they are read from the YAML file,
+ * the converted machines are never all held at once. The YAML file is left untouched.</p>
+ */
+public final class StorageConverter {
+
+    private StorageConverter() {
+    }
+
+    /**
+     * Convert a YAML file to a binary file
+     * <p>Entries which are not of the codec's type are skipped.
+     * The binary file is only replaced once it is completely written.</p>
+     *
+     * @param yamlFile   YAML file to read
+     * @param section    Section of the YAML file holding the entries
+     * @param binaryFile Binary file to write
+     * @param codec      Codec of the entries
+     * @return Amount of entries converted
+     * @throws IOException When the binary file could not be written
+     */
+    public static int convert(@NotNull File yamlFile, @NotNull String section, @NotNull File binaryFile, @NotNull MachineCodec codec) throws IOException {
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(yamlFile);
+        ConfigurationSection entries = config.getConfigurationSection(section);
+        int[] count = new int[1];
+        FileMachineStorage.writeFile(binaryFile, out -> {
+            MachineCodec.Writer writer = codec.writer(out);
+            if (entries != null) {
+                for (String key : entries.getKeys(false)) {
+                    if (!(entries.get(key) instanceof ConfigurationSerializable serializable)) continue;
+                    if (!codec.getAlias().equals(ConfigurationSerialization.getAlias(serializable.getClass()))) continue;
+                    writer.write(toRecord(serializable));
+                    // Let go of converted entries
+                    entries.set(key, null);
+                }
+            }
+            writer.finish();
+            count[0] = writer.getCount();
+        });
+        return count[0];
+    }
+
+    /**
+     * Convert a YAML file to a binary file, if the binary file does not exist yet
+     *
+     * @param yamlFile   YAML file to read
+     * @param section    Section of the YAML file holding the entries
+     * @param binaryFile Binary file to write
+     * @param codec      Codec of the entries
+     * @return Amount of entries converted, -1 if nothing had to be converted
+     * @throws IOException When the binary file could not be written
+     */
+    public static int convertIfMissing(@NotNull File yamlFile, @NotNull String section, @NotNull File binaryFile, @NotNull MachineCodec codec) throws IOException {
+        if (binaryFile.exists() || !yamlFile.exists()) return -1;
+        return convert(yamlFile, section, binaryFile, codec);
+    }
+
+    private static Map<String, Object> toRecord(ConfigurationSerializable serializable) {
+        Map<String, Object> record = new LinkedHashMap<>(serializable.serialize());
+        // Serializing stamps the current time, keep the time the machine was last saved at
+        if (serializable instanceof Machine machine && machine.getLastTicked() > 0) {
+            record.put("lastTicked", machine.getLastTicked());
+        }
+        return record;
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.shanebeestudios.api.storage;
+
+import com.shanebeestudios.api.machine.Machine;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+/**
+ * Format {@link MachineStorage} writes machines in
+ */
+public enum StorageType {
+
+    /**
+     * Machines are stored in a YAML file, as their serialized map
+     */
+    YAML("yml"),
+    /**
+     * Machines are stored in a compact binary file, see {@link MachineCodec}
+     * <p>Existing YAML files are converted when no binary file exists yet</p>
+     */
+    BINARY("dat"),
+    /**
+     * Machines are stored in a binary snapshot and a journal of changes, see {@link JournalMachineStorage}
+     * <p>Uses the same snapshot file as {@link #BINARY}, the journal is compacted into it on shutdown</p>
+     */
+    JOURNAL("dat");
+
+    private final String extension;
+
+    StorageType(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Get the extension of files in this format
+     *
+     * @return File extension, without the dot
+     */
+    public String getExtension() {
+        return this.extension;
+    }
+
+    /**
+     * Create a storage in this format
+     *
+     * @param dataFolder Folder the file is stored in
+     * @param name       Name of the file, without extension
+     * @param section    Section of YAML files holding the machines
+     * @param codec      Codec of the machines in binary files
+     * @param type       Type of machine
+     * @param <M>        Type of machine
+     * @return New storage
+     */
+    public <M extends Machine & ConfigurationSerializable> MachineStorage<M> create(@NotNull File dataFolder, @NotNull String name, @NotNull String section,
+                                                                                    @NotNull MachineCodec codec, @NotNull Class<M> type) {
+        return createFile(new File(dataFolder, name + "." + this.extension), section, codec, type);
+    }
+
+    <M extends Machine & ConfigurationSerializable> FileMachineStorage<M> createFile(File file, String section, MachineCodec codec, Class<M> type) {
+        return switch (this) {
+            case YAML -> new YamlMachineStorage<>(file, section, type);
+            case BINARY -> new BinaryMachineStorage<>(file, codec, type);
+            case JOURNAL -> new JournalMachineStorage<>(file, codec, type, JournalMachineStorage.DEFAULT_COMPACTION_SIZE);
+        };
+    }
+
+}
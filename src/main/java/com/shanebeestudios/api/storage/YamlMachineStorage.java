@@ -0,0 +1,105 @@
+package com.shanebeestudios.api.storage;
+
+import com.shanebeestudios.api.machine.Machine;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.*;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Stores machines in a YAML file, in a section keyed by their ID
+ * <p>The config only holds snapshots and is only touched by the writer thread,
+ * encoding never reads a machine which is being ticked.</p>
+ *
+ * @param <M> Type of machine
+ */
+public final class YamlMachineStorage<M extends Machine & ConfigurationSerializable> extends FileMachineStorage<M> {
+
+    private final String section;
+    private final Class<M> type;
+    private FileConfiguration config = new YamlConfiguration();
+
+    /**
+     * Create a new YAML storage
+     *
+     * @param file    File to store machines in
+     * @param section Section of the file machines are stored in
+     * @param type    Type of machine
+     */
+    public YamlMachineStorage(@NotNull File file, @NotNull String section, @NotNull Class<M> type) {
+        super(file);
+        this.section = section;
+        this.type = type;
+    }
+
+    @Override
+    void loadOnWriter(Consumer<M> consumer) {
+        this.config = YamlConfiguration.loadConfiguration(this.file);
+        ConfigurationSection section = this.config.getConfigurationSection(this.section);
+        if (section == null) return;
+        for (String key : section.getKeys(false)) {
+            Object value = section.get(key);
+            if (!this.type.isInstance(value)) continue;
+            M machine = this.type.cast(value);
+            consumer.accept(machine);
+            // The config only holds snapshots, never the machines being ticked
+            section.set(key, MachineStorage.snapshot(machine));
+        }
+    }
+
+    @Override
+    public void save(@NotNull M machine) {
+        Map<String, Object> snapshot = MachineStorage.snapshot(machine);
+        String path = path(machine.getUniqueID());
+        execute(() -> this.config.set(path, snapshot));
+    }
+
+    @Override
+    public void remove(@NotNull UUID uuid) {
+        String path = path(uuid);
+        execute(() -> this.config.set(path, null));
+    }
+
+    @Override
+    public void release(@NotNull UUID uuid) {
+        String path = path(uuid);
+        execute(() -> this.config.set(path, null));
+    }
+
+    @Override
+    public void restore(@NotNull UUID uuid, @NotNull Map<String, Object> snapshot) {
+        String path = path(uuid);
+        execute(() -> this.config.set(path, snapshot));
+    }
+
+    @Override
+    public void write() {
+        executeWithReleased(released -> {
+            // Released machines are only in the config while it is written
+            List<String> releasedPaths = new ArrayList<>(released.size());
+            for (Map<String, Object> snapshot : released) {
+                String path = path(UUID.fromString(snapshot.get("uuid").toString()));
+                if (this.config.contains(path)) continue;
+                this.config.set(path, snapshot);
+                releasedPaths.add(path);
+            }
+            try {
+                writeFile(out -> out.write(this.config.saveToString().getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            } finally {
+                releasedPaths.forEach(path -> this.config.set(path, null));
+            }
+        });
+    }
+
+    private String path(UUID uuid) {
+        return this.section + "." + uuid;
+    }
+
+}
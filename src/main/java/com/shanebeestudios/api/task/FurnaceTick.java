@@ -4,24 +4,40 @@ import com.shanebeestudios.api.*;
 import com.shanebeestudios.api.machine.*;
 import org.bukkit.Bukkit;
 import org.bukkit.scheduler.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Timer for ticking furnaces
+ * <p>Machines are split into shards which are ticked in parallel
+ * based on the {@link VirtualFurnaceSettings} the API was created with</p>
  */
 public class FurnaceTick extends BukkitRunnable {
 
     private final FurnaceManager furnaceManager;
     private final BrewingManager brewingManager;
     private final VirtualFurnaceAPI virtualFurnaceAPI;
+    private final TickEngine engine;
+    private final Queue<Runnable> betweenTicks = new ConcurrentLinkedQueue<>();
     private int tick;
     private int id;
-    private boolean running;
 
     public FurnaceTick(VirtualFurnaceAPI virtualFurnaceAPI) {
         this.virtualFurnaceAPI = virtualFurnaceAPI;
         this.furnaceManager = virtualFurnaceAPI.getFurnaceManager();
         this.brewingManager = virtualFurnaceAPI.getBrewingManager();
+        VirtualFurnaceSettings settings = virtualFurnaceAPI.getSettings();
+        this.engine = new TickEngine(settings.getTickShards(), settings.getTickThreads(), settings.getTickMode(), settings.getTickBudget(), settings.getTickEventMode());
         this.tick = 0;
+
+        for (Furnace furnace : furnaceManager.getAllFurnaces()) {
+            this.engine.track(furnace);
+        }
+        for (BrewingStand stand : brewingManager.getAllStands()) {
+            this.engine.track(stand);
+        }
     }
 
     public void start() {
@@ -29,39 +45,166 @@ public class FurnaceTick extends BukkitRunnable {
         id = task.getTaskId();
     }
 
-    @Override
-    public void run() {
-        running = true;
-        try {
-            for (Furnace furnace : furnaceManager.getAllFurnaces()) {
-                if (!running) {
-                    return;
-                }
-                furnace.tick();
-            }
+    /**
+     * Add a machine to the tick list
+     * <p>This is done for you when creating machines using the managers</p>
+     *
+     * @param machine Machine to start ticking
+     */
+    public void track(@NotNull Machine machine) {
+        this.engine.track(machine);
+    }
 
-            for (BrewingStand stand : brewingManager.getAllStands()) {
-                if (!running) {
-                    return;
-                }
-                stand.tick();
+    /**
+     * Wake up a machine so it is ticked again
+     * <p>Idle machines are not ticked until they are woken up,
+     * see {@link Machine#wake()}</p>
+     *
+     * @param machine Machine to wake up
+     */
+    public void wake(@NotNull Machine machine) {
+        this.engine.wake(machine);
+    }
+
+    /**
+     * Wake up all machines so they are ticked again
+     * <p>Machines parked until their next state change are ticked again as well,
+     * used when something they depend on, such as the registered recipes, changed</p>
+     */
+    public void wakeAll() {
+        this.engine.wakeAll();
+    }
+
+    /**
+     * Run a task in between two ticks, when no machine is being ticked
+     * <p>The task runs off the main thread, right before the next tick.
+     * When the tick was cancelled the task is run right away.</p>
+     *
+     * @param task Task to run
+     */
+    public void runBetweenTicks(@NotNull Runnable task) {
+        this.betweenTicks.add(task);
+        if (!this.engine.isRunning()) {
+            runTasksBetweenTicks();
+        }
+    }
+
+    private void runTasksBetweenTicks() {
+        Runnable task;
+        while ((task = this.betweenTicks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception ex) {
+                ex.printStackTrace();
             }
+        }
+    }
 
+    @Override
+    public void run() {
+        runTasksBetweenTicks();
+        try {
+            this.engine.tick();
+            this.engine.callBatchEvent();
         } catch (Exception ex) {
             ex.printStackTrace();
         }
         tick++;
+        if (tick % 1200 == 0 && this.virtualFurnaceAPI.getSettings().isOffHeap()) {
+            // Move dormant furnaces out of the heap
+            this.engine.evict(Furnace.class, this.furnaceManager::offload);
+        }
         if (tick >= 6000) {
+            // Changed machines are snapshot in between ticks, the files are written in the background
+            this.engine.settleParked();
             this.furnaceManager.saveAll();
             this.brewingManager.saveAll();
             this.tick = 0;
         }
     }
 
+    /**
+     * Get the amount of shards machines are split into
+     *
+     * @return Amount of shards
+     */
+    public int getShardCount() {
+        return this.engine.getShards().length;
+    }
+
+    /**
+     * Get the amount of machines ticked by a shard
+     *
+     * @param shard Index of shard
+     * @return Amount of machines in shard
+     */
+    public int getShardSize(int shard) {
+        return this.engine.getShards()[shard].size();
+    }
+
+    /**
+     * Get the amount of machines which are currently active
+     * <p>Idle machines are dormant and do not count towards this</p>
+     *
+     * @return Amount of active machines
+     */
+    public int getActiveCount() {
+        int count = 0;
+        for (TickShard shard : this.engine.getShards()) {
+            count += shard.activeSize();
+        }
+        return count;
+    }
+
+    /**
+     * Get the amount of machines which are currently parked until their next state change
+     * <p>Only used in {@link TickMode#SCHEDULED} and {@link TickMode#ARRAY} mode</p>
+     *
+     * @return Amount of parked machines
+     */
+    public int getParkedCount() {
+        int count = 0;
+        for (TickShard shard : this.engine.getShards()) {
+            count += shard.parkedSize() + shard.steppingSize();
+        }
+        return count;
+    }
+
+    /**
+     * Get the time each shard took during the last tick
+     *
+     * @return Tick times in nanoseconds, indexed by shard
+     */
+    public long[] getShardTickTimes() {
+        TickShard[] shards = this.engine.getShards();
+        long[] times = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            times[i] = shards[i].getLastTickTime();
+        }
+        return times;
+    }
+
+    /**
+     * Get how many ticks the engine is behind
+     * <p>When a tick run goes over the {@link VirtualFurnaceSettings#tickBudget(long) time budget},
+     * the remaining machines are ticked in later runs. This is how many ticks ago the machine
+     * which has been waiting the longest was last ticked.</p>
+     *
+     * @return Amount of ticks behind, 0 if every machine was ticked in the last run
+     */
+    public long getLagTicks() {
+        long lag = 0;
+        for (TickShard shard : this.engine.getShards()) {
+            lag = Math.max(lag, shard.getLagTicks());
+        }
+        return lag;
+    }
+
     @Override
     public synchronized void cancel() throws IllegalStateException {
-        this.running = false;
+        this.engine.shutdown();
         Bukkit.getScheduler().cancelTask(id);
+        runTasksBetweenTicks();
     }
 
 }
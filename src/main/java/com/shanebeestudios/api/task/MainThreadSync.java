@@ -0,0 +1,69 @@
+package com.shanebeestudios.api.task;
+
+import com.shanebeestudios.api.VirtualFurnaceAPI;
+import com.shanebeestudios.api.machine.Machine;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Applies changes made by the async {@link FurnaceTick} to Bukkit on the main thread
+ * <p>Machines queue themselves when their inventory view needs updating,
+ * everything queued is applied in one batch each tick. Only machines with viewers are synced.</p>
+ */
+public class MainThreadSync extends BukkitRunnable {
+
+    private final VirtualFurnaceAPI virtualFurnaceAPI;
+    private final Queue<Machine> machines = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    public MainThreadSync(VirtualFurnaceAPI virtualFurnaceAPI) {
+        this.virtualFurnaceAPI = virtualFurnaceAPI;
+    }
+
+    public void start() {
+        this.runTaskTimer(this.virtualFurnaceAPI.getJavaPlugin(), 1, 1L);
+    }
+
+    /**
+     * Queue a machine to have its inventory synced on the next tick
+     * <p>Use {@link Machine#queueSync()} instead</p>
+     *
+     * @param machine Machine to sync
+     */
+    public void queue(@NotNull Machine machine) {
+        this.machines.add(machine);
+    }
+
+    /**
+     * Run a task on the main thread during the next tick
+     *
+     * @param task Task to run
+     */
+    public void execute(@NotNull Runnable task) {
+        this.tasks.add(task);
+    }
+
+    @Override
+    public void run() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+        Machine machine;
+        while ((machine = this.machines.poll()) != null) {
+            try {
+                machine.sync();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.shanebeestudios.api.task;
+
+import com.shanebeestudios.api.event.Event;
+import com.shanebeestudios.api.event.TickEventMode;
+import com.shanebeestudios.api.event.machine.*;
+import com.shanebeestudios.api.machine.Machine;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+/**
+ * Splits {@link Machine Machines} into stable shards and ticks them, in parallel when using more than 1 thread
+ */
+class TickEngine {
+
+    private final TickShard[] shards;
+    private final Map<UUID, TickHandle> handles = new ConcurrentHashMap<>();
+    private final ForkJoinPool pool;
+    private final TickMode mode;
+    private final TickEventMode eventMode;
+    private final long budget;
+    private volatile boolean running = true;
+    private volatile long currentTick;
+    private volatile long deadline = Long.MAX_VALUE;
+
+    TickEngine(int shardCount, int threads, TickMode mode, long budgetMicros, TickEventMode eventMode) {
+        this.mode = mode;
+        this.eventMode = eventMode;
+        this.budget = TimeUnit.MICROSECONDS.toNanos(budgetMicros);
+        this.shards = new TickShard[Math.max(1, shardCount)];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new TickShard(this);
+        }
+        if (threads > 1) {
+            ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("VirtualFurnace-Tick-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.pool = new ForkJoinPool(threads, factory, null, false);
+        } else {
+            this.pool = null;
+        }
+    }
+
+    void track(Machine machine) {
+        TickShard shard = this.shards[getShardIndex(machine)];
+        TickHandle handle = new TickHandle(machine, shard);
+        if (this.handles.putIfAbsent(machine.getUniqueID(), handle) == null) {
+            shard.add(handle);
+        }
+    }
+
+    void wake(Machine machine) {
+        TickHandle handle = this.handles.get(machine.getUniqueID());
+        if (handle != null) {
+            handle.shard.wake(handle);
+        }
+    }
+
+    void wakeAll() {
+        for (TickHandle handle : this.handles.values()) {
+            handle.shard.wake(handle);
+        }
+    }
+
+    /**
+     * Remove dormant machines from the engine
+     * <p>Only called in between ticks. A machine is removed when the filter accepts it,
+     * the filter is expected to take over the machine.</p>
+     * <p>Machines are removed before the filter is called, so a machine the filter hands back
+     * while it is running can be tracked again. Machines the filter rejects are tracked again.</p>
+     *
+     * @param type   Type of machines to remove
+     * @param filter Filter for dormant machines
+     * @param <M>    Type of machine
+     * @return Amount of machines removed
+     */
+    <M extends Machine> int evict(Class<M> type, Predicate<M> filter) {
+        int count = 0;
+        for (TickHandle handle : this.handles.values()) {
+            if (!handle.dormant || handle.queued || !type.isInstance(handle.machine)) continue;
+            M machine = type.cast(handle.machine);
+            if (!this.handles.remove(machine.getUniqueID(), handle)) continue;
+            handle.shard.remove(handle);
+            if (filter.test(machine)) {
+                count++;
+            } else {
+                track(machine);
+            }
+        }
+        return count;
+    }
+
+    int getShardIndex(Machine machine) {
+        return Math.floorMod(machine.getUniqueID().hashCode(), this.shards.length);
+    }
+
+    synchronized void tick() {
+        // A run started after shutting down would move machines past their settled state
+        if (!this.running) return;
+        this.currentTick++;
+        this.deadline = this.budget > 0 ? System.nanoTime() + this.budget : Long.MAX_VALUE;
+        if (this.pool == null) {
+            for (TickShard shard : this.shards) {
+                shard.tick();
+            }
+            return;
+        }
+        for (TickShard shard : this.shards) {
+            shard.reinitialize();
+        }
+        this.pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(this.shards)));
+    }
+
+    /**
+     * Bring parked machines up to the current tick
+     * <p>In {@link TickMode#SCHEDULED} mode, parked machines only apply their ticks when they wake up.
+     * Waits for a running tick to finish.</p>
+     */
+    synchronized void settleParked() {
+        if (this.mode != TickMode.SCHEDULED) return;
+        for (TickShard shard : this.shards) {
+            shard.settleParked(this.currentTick);
+        }
+    }
+
+    long getCurrentTick() {
+        return this.currentTick;
+    }
+
+    /**
+     * Get the {@link System#nanoTime()} by which the current run should be done
+     *
+     * @return Deadline of current run, {@link Long#MAX_VALUE} if there is no time budget
+     */
+    long getDeadline() {
+        return this.deadline;
+    }
+
+    TickMode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Check whether shards should collect a {@link FurnaceTickBatch} this tick
+     *
+     * @return True if batching and anything listens for the batch event
+     */
+    boolean isBatching() {
+        return this.eventMode == TickEventMode.BATCH && Event.hasListeners(FurnaceTickBatchEvent.getHandlerList());
+    }
+
+    /**
+     * Call the batch event for everything the shards collected during the last tick
+     */
+    void callBatchEvent() {
+        if (this.eventMode != TickEventMode.BATCH) return;
+        List<FurnaceTickBatch> batches = new ArrayList<>(this.shards.length);
+        for (TickShard shard : this.shards) {
+            FurnaceTickBatch batch = shard.getBatch();
+            if (!batch.isEmpty()) batches.add(batch);
+        }
+        if (batches.isEmpty()) return;
+        new FurnaceTickBatchEvent(batches).callEvent();
+        for (FurnaceTickBatch batch : batches) {
+            batch.clear();
+        }
+    }
+
+    boolean isRunning() {
+        return this.running;
+    }
+
+    TickShard[] getShards() {
+        return this.shards;
+    }
+
+    void shutdown() {
+        this.running = false;
+        // Machines are saved after shutting down, parked ones should not lose the ticks they were parked for
+        settleParked();
+        if (this.pool != null) {
+            this.pool.shutdownNow();
+        }
+    }
+
+}
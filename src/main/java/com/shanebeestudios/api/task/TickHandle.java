@@ -0,0 +1,37 @@
+package com.shanebeestudios.api.task;
+
+import com.shanebeestudios.api.machine.Machine;
+
+/**
+ * Scheduling state the {@link TickEngine} keeps for each tracked {@link Machine}
+ * <p>Apart from {@link #queued}, fields are only touched by the thread ticking the owning shard.</p>
+ */
+final class TickHandle {
+
+    final Machine machine;
+    final TickShard shard;
+    // Whether a wake up is waiting in the shard's queue
+    volatile boolean queued;
+    // Whether the machine is out of the active set
+    boolean dormant;
+    // Last tick this machine was brought up to date for
+    long lastTick;
+    // Whether the machine is parked on the timer wheel, and since which tick
+    boolean parked;
+    long parkedAt;
+    // Whether the machine was removed from the engine
+    volatile boolean evicted;
+    // Whether the machine is stepped by the shard's state store, and its slot there
+    boolean stepping;
+    int slot = -1;
+    // Timer wheel bucket links
+    long wakeAt;
+    TickHandle prev;
+    TickHandle next;
+
+    TickHandle(Machine machine, TickShard shard) {
+        this.machine = machine;
+        this.shard = shard;
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.shanebeestudios.api.task;
+
+import com.shanebeestudios.api.machine.Machine;
+
+/**
+ * How the {@link FurnaceTick} processes active {@link Machine Machines}
+ */
+public enum TickMode {
+
+    /**
+     * Every active machine is ticked every tick
+     */
+    PER_TICK,
+
+    /**
+     * Machines nobody is viewing are parked until their next state change
+     * <p>The engine asks a machine how many ticks it will take until something changes
+     * (a cook finishing, fuel running out) and parks it on a timer wheel.
+     * When the timer expires the progress of all parked ticks is applied in one step.
+     * While a player has the inventory open the machine is ticked every tick.</p>
+     * <p><b>NOTE:</b> Per tick events such as the cooking and fuel burning events
+     * are not called for parked ticks.</p>
+     */
+    SCHEDULED,
+
+    /**
+     * The timers of furnaces are kept in primitive arrays per shard
+     * <p>Furnaces which are steadily burning and cooking are stepped by a single pass over these arrays
+     * until their next state change, other machines are ticked every tick.
+     * Unlike {@link #SCHEDULED} the state of a furnace is always up to date.</p>
+     * <p><b>NOTE:</b> Per tick events such as the cooking and fuel burning events
+     * are not called for stepped ticks.</p>
+     */
+    ARRAY
+
+}
@@ -0,0 +1,282 @@
+package com.shanebeestudios.api.task;
+
+import com.shanebeestudios.api.event.machine.FurnaceTickBatch;
+import com.shanebeestudios.api.machine.Furnace;
+import com.shanebeestudios.api.machine.FurnaceStateStore;
+import com.shanebeestudios.api.machine.Machine;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A group of {@link Machine Machines} which are always ticked together on one thread
+ * <p>Machines are only ever ticked by the thread currently ticking their shard, while holding their lock,
+ * so the main thread can change and sync them at any time. Machines added or woken up from other threads
+ * are queued until the next tick.</p>
+ * <p>Only active machines are ticked. A machine which {@link Machine#isIdle() is idle}
+ * after its tick goes dormant, and stays out of the tick loop until it is woken up again.
+ * In {@link TickMode#SCHEDULED} mode, machines are also parked on a {@link TimerWheel}
+ * until their next state change. In {@link TickMode#ARRAY} mode, furnaces are bound to a {@link FurnaceStateStore}
+ * which steps them until their next state change.</p>
+ * <p>When the engine has a time budget, a run stops at the deadline and the next run continues
+ * where it left off. Machines which were skipped catch up on the missed ticks when they are reached again.</p>
+ */
+class TickShard extends RecursiveAction {
+
+    private final TickEngine engine;
+    private final List<TickHandle> active = new ArrayList<>();
+    private final List<TickHandle> expired = new ArrayList<>();
+    private final Queue<TickHandle> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<TickHandle> woken = new ConcurrentLinkedQueue<>();
+    private final TimerWheel timerWheel = new TimerWheel();
+    private final FurnaceStateStore store;
+    private final FurnaceTickBatch batch = new FurnaceTickBatch();
+    // Handles indexed by their slot in the state store
+    private TickHandle[] slots;
+    private volatile int size;
+    private volatile int activeSize;
+    private volatile int parkedSize;
+    private volatile long lastTickTime;
+    private volatile long lagTicks;
+    // Index in the active list the next run starts at
+    private int cursor;
+
+    TickShard(TickEngine engine) {
+        this.engine = engine;
+        if (engine.getMode() == TickMode.ARRAY) {
+            this.store = new FurnaceStateStore();
+            this.slots = new TickHandle[64];
+        } else {
+            this.store = null;
+        }
+    }
+
+    void add(TickHandle handle) {
+        this.pending.add(handle);
+    }
+
+    void wake(TickHandle handle) {
+        if (handle.queued) return;
+        handle.queued = true;
+        this.woken.add(handle);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Remove a dormant machine from this shard
+     * <p>Only called in between ticks</p>
+     *
+     * @param handle Handle of machine
+     */
+    void remove(TickHandle handle) {
+        handle.evicted = true;
+        if (handle.slot >= 0) {
+            // Readers on other threads hold the lock of the machine while reading its timers
+            synchronized (handle.machine) {
+                this.store.unbind((Furnace) handle.machine);
+            }
+            this.slots[handle.slot] = null;
+            handle.slot = -1;
+        }
+        this.size--;
+    }
+
+    /**
+     * Apply the ticks parked machines missed so far
+     * <p>Only called in between ticks. Parked machines stay parked until their timer,
+     * their state just no longer lags behind, such as before they are saved.</p>
+     *
+     * @param currentTick Last tick of the engine
+     */
+    void settleParked(long currentTick) {
+        this.timerWheel.forEach(handle -> {
+            fastForward(handle, currentTick - handle.parkedAt);
+            handle.parkedAt = currentTick;
+        });
+    }
+
+    int activeSize() {
+        return this.activeSize;
+    }
+
+    int parkedSize() {
+        return this.parkedSize;
+    }
+
+    int steppingSize() {
+        return this.store != null ? this.store.steppingSize() : 0;
+    }
+
+    long getLastTickTime() {
+        return this.lastTickTime;
+    }
+
+    FurnaceTickBatch getBatch() {
+        return this.batch;
+    }
+
+    long getLagTicks() {
+        return this.lagTicks;
+    }
+
+    @Override
+    protected void compute() {
+        tick();
+    }
+
+    void tick() {
+        boolean batching = this.engine.isBatching();
+        if (batching) this.batch.begin();
+        try {
+            tickMachines();
+        } finally {
+            if (batching) this.batch.end();
+        }
+    }
+
+    private void tickMachines() {
+        long start = System.nanoTime();
+        long currentTick = this.engine.getCurrentTick();
+        long deadline = this.engine.getDeadline();
+        boolean scheduled = this.engine.getMode() == TickMode.SCHEDULED;
+
+        TickHandle handle;
+        while ((handle = this.pending.poll()) != null) {
+            if (this.store != null && handle.machine instanceof Furnace furnace) {
+                int slot;
+                synchronized (furnace) {
+                    slot = this.store.bind(furnace);
+                }
+                if (slot == this.slots.length) {
+                    this.slots = Arrays.copyOf(this.slots, slot * 2);
+                }
+                this.slots[slot] = handle;
+                handle.slot = slot;
+            }
+            handle.lastTick = currentTick - 1;
+            this.active.add(handle);
+            this.size++;
+        }
+        while ((handle = this.woken.poll()) != null) {
+            handle.queued = false;
+            if (handle.evicted) continue;
+            if (handle.parked) {
+                // Apply the ticks parked so far, this tick is processed below
+                this.timerWheel.cancel(handle);
+                handle.parked = false;
+                fastForward(handle, currentTick - 1 - handle.parkedAt);
+                handle.lastTick = currentTick - 1;
+                this.active.add(handle);
+            } else if (handle.stepping) {
+                // State is already up to date, just stop stepping
+                this.store.stop((Furnace) handle.machine);
+                handle.stepping = false;
+                handle.lastTick = currentTick - 1;
+                this.active.add(handle);
+            } else if (handle.dormant) {
+                handle.dormant = false;
+                handle.lastTick = currentTick - 1;
+                this.active.add(handle);
+            }
+        }
+
+        // Step furnaces in the state store, the ones reaching a state change are ticked normally from the next tick
+        int expiredSlots = this.store != null ? this.store.tick() : 0;
+
+        // Tick active machines round robin starting at the cursor, until all are done or the deadline passes.
+        // Machines which leave the active set are nulled out and compacted afterwards.
+        int size = this.active.size();
+        int first = this.cursor < size ? this.cursor : 0;
+        int done = 0;
+        int removed = 0;
+        while (done < size) {
+            if (done > 0 && (done & 31) == 0 && System.nanoTime() >= deadline) break;
+            int index = first + done < size ? first + done : first + done - size;
+            done++;
+            handle = this.active.get(index);
+            if (this.engine.isRunning()) {
+                Machine machine = handle.machine;
+                try {
+                    // The main thread changes and syncs machines while holding their lock,
+                    // a player may open the inventory at any point during the tick
+                    synchronized (machine) {
+                        // Make up for ticks skipped while the budget ran out
+                        long skipped = currentTick - 1 - handle.lastTick;
+                        if (skipped > 0) machine.fastForward(skipped);
+                        machine.tick();
+                        handle.lastTick = currentTick;
+                        if (machine.isIdle()) {
+                            handle.dormant = true;
+                        } else if (this.store != null) {
+                            if (machine instanceof Furnace furnace && this.store.step(furnace)) {
+                                handle.stepping = true;
+                            }
+                        } else if (scheduled) {
+                            int ticks = machine.getTicksUntilChange();
+                            if (ticks > 1) {
+                                handle.parked = true;
+                                handle.parkedAt = currentTick;
+                                this.timerWheel.schedule(handle, currentTick + ticks);
+                            }
+                        }
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            if (handle.dormant || handle.parked || handle.stepping) {
+                this.active.set(index, null);
+                removed++;
+            }
+        }
+        int next = first + done < size ? first + done : first + done - size;
+        if (removed > 0) {
+            int keep = 0;
+            for (int i = 0; i < size; i++) {
+                TickHandle kept = this.active.get(i);
+                if (i == next) next = keep;
+                if (kept != null) this.active.set(keep++, kept);
+            }
+            if (next > keep) next = keep;
+            this.active.subList(keep, size).clear();
+        }
+        this.cursor = done < size ? next : 0;
+        this.lagTicks = done < size && this.cursor < this.active.size() ? currentTick - this.active.get(this.cursor).lastTick : 0;
+
+        // Machines whose timer expired get all parked ticks (including this one) in one step
+        this.timerWheel.expire(currentTick, this.expired);
+        for (TickHandle expiredHandle : this.expired) {
+            expiredHandle.parked = false;
+            fastForward(expiredHandle, currentTick - expiredHandle.parkedAt);
+            expiredHandle.lastTick = currentTick;
+            this.active.add(expiredHandle);
+        }
+        this.expired.clear();
+        for (int i = 0; i < expiredSlots; i++) {
+            TickHandle stepped = this.slots[this.store.getExpired(i)];
+            stepped.stepping = false;
+            stepped.lastTick = currentTick;
+            this.active.add(stepped);
+        }
+
+        this.activeSize = this.active.size();
+        this.parkedSize = this.timerWheel.size();
+        this.lastTickTime = System.nanoTime() - start;
+    }
+
+    private void fastForward(TickHandle handle, long ticks) {
+        if (ticks <= 0) return;
+        try {
+            synchronized (handle.machine) {
+                handle.machine.fastForward(ticks);
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.shanebeestudios.api.task;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel used to park {@link TickHandle TickHandles} until a given tick
+ * <p>Each bucket is an intrusive doubly linked list through the handles,
+ * so scheduling and cancelling are constant time and allocation free.
+ * Handles scheduled further ahead than the wheel size simply wait for more rotations.</p>
+ */
+class TimerWheel {
+
+    private static final int SIZE = 512;
+    private static final int MASK = SIZE - 1;
+
+    private final TickHandle[] buckets = new TickHandle[SIZE];
+    private int size;
+
+    void schedule(TickHandle handle, long wakeAt) {
+        int index = (int) (wakeAt & MASK);
+        TickHandle head = this.buckets[index];
+        handle.wakeAt = wakeAt;
+        handle.prev = null;
+        handle.next = head;
+        if (head != null) {
+            head.prev = handle;
+        }
+        this.buckets[index] = handle;
+        this.size++;
+    }
+
+    void cancel(TickHandle handle) {
+        TickHandle prev = handle.prev;
+        TickHandle next = handle.next;
+        if (prev != null) {
+            prev.next = next;
+        } else {
+            this.buckets[(int) (handle.wakeAt & MASK)] = next;
+        }
+        if (next != null) {
+            next.prev = prev;
+        }
+        handle.prev = null;
+        handle.next = null;
+        this.size--;
+    }
+
+    void expire(long tick, List<TickHandle> expired) {
+        TickHandle handle = this.buckets[(int) (tick & MASK)];
+        while (handle != null) {
+            TickHandle next = handle.next;
+            if (handle.wakeAt <= tick) {
+                cancel(handle);
+                expired.add(handle);
+            }
+            handle = next;
+        }
+    }
+
+    void forEach(Consumer<TickHandle> action) {
+        for (TickHandle head : this.buckets) {
+            for (TickHandle handle = head; handle != null; handle = handle.next) {
+                action.accept(handle);
+            }
+        }
+    }
+
+    int size() {
+        return this.size;
+    }
+
+}
@@ -7,7 +7,6 @@ import org.bukkit.block.Block;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.entity.ExperienceOrb;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 import org.jetbrains.annotations.NotNull;
 
@@ -35,32 +34,27 @@ public class FurnaceTile extends Tile<Furnace> implements ConfigurationSerializa
 
     @Override
     public void breakTile() {
-        BukkitRunnable runnable = new BukkitRunnable() {
-            final ItemStack fuel = machine.getFuel();
-            final ItemStack input = machine.getInput();
-            final ItemStack output = machine.getOutput();
-            final float xp = machine.extractExperience();
-            final Vector vec = new Vector(0, 0, 0);
-
-            @Override
-            public void run() {
-                World world = getBukkitWorld();
-                Location drop = new Location(world, x + 0.5, y + 0.5, z + 0.5);
-                if (fuel != null) {
-                    world.dropItem(drop, fuel).setVelocity(vec);
-                }
-                if (input != null) {
-                    world.dropItem(drop, input).setVelocity(vec);
-                }
-                if (output != null) {
-                    world.dropItem(drop, output).setVelocity(vec);
-                }
-                if (xp > 0) {
-                    world.spawn(drop, ExperienceOrb.class, orb -> orb.setExperience((int) xp)).setVelocity(vec);
-                }
+        final ItemStack fuel = machine.getFuel();
+        final ItemStack input = machine.getInput();
+        final ItemStack output = machine.getOutput();
+        final float xp = machine.extractExperience();
+        final Vector vec = new Vector(0, 0, 0);
+        VirtualFurnaceAPI.getInstance().getMainThreadSync().execute(() -> {
+            World world = getBukkitWorld();
+            Location drop = new Location(world, x + 0.5, y + 0.5, z + 0.5);
+            if (fuel != null) {
+                world.dropItem(drop, fuel).setVelocity(vec);
+            }
+            if (input != null) {
+                world.dropItem(drop, input).setVelocity(vec);
+            }
+            if (output != null) {
+                world.dropItem(drop, output).setVelocity(vec);
+            }
+            if (xp > 0) {
+                world.spawn(drop, ExperienceOrb.class, orb -> orb.setExperience((int) xp)).setVelocity(vec);
             }
-        };
-        runnable.runTaskLater(VirtualFurnaceAPI.getInstance().getJavaPlugin(), 0);
+        });
         super.breakTile();
     }
 
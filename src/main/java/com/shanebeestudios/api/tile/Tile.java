@@ -159,7 +159,9 @@ public abstract class Tile<M extends Machine> {
      */
     public void tick() {
         if (blockDataMatches(getBlock())) {
-            machine.tick();
+            synchronized (machine) {
+                machine.tick();
+            }
         } else {
             breakTile();
         }